@@ -0,0 +1,159 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol;
+
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.metrics.ListenerProfiler;
+import com.ichorpowered.protocolcontrol.metrics.ProtocolMetrics;
+import com.ichorpowered.protocolcontrol.metrics.StallDetector;
+import com.ichorpowered.protocolcontrol.packet.FlushCoalescer;
+import com.ichorpowered.protocolcontrol.packet.PacketEncoder;
+import com.ichorpowered.protocolcontrol.packet.PacketFirewall;
+import com.ichorpowered.protocolcontrol.packet.PacketHandler;
+import com.ichorpowered.protocolcontrol.packet.PacketPriorities;
+import com.ichorpowered.protocolcontrol.packet.PacketRegistry;
+import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.NetworkManager;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+
+/**
+ * Provides the enabled managers and injected channels
+ * used by the benchmarks.
+ */
+public final class BenchmarkSupport {
+  public static final Logger LOGGER = NOPLogger.NOP_LOGGER;
+  public static final int THRESHOLD = 256;
+
+  private BenchmarkSupport() {
+  }
+
+  /**
+   * Returns a new enabled {@link ProtocolEvent}.
+   *
+   * @return the protocol events
+   */
+  public static @NonNull ProtocolEvent events() {
+    final ProtocolEvent events = new ProtocolEvent(BenchmarkSupport.LOGGER, new ListenerProfiler(BenchmarkSupport.LOGGER),
+      new PacketRegistry(BenchmarkSupport.LOGGER), new PacketRemapper(BenchmarkSupport.LOGGER));
+    events.enable();
+    return events;
+  }
+
+  /**
+   * Disables the specified {@link ProtocolEvent}.
+   *
+   * @param events the protocol events
+   */
+  public static void disable(final @NonNull ProtocolEvent events) {
+    events.disable();
+  }
+
+  /**
+   * Returns a new {@link ProtocolChannel} using a {@link PacketEncoder}
+   * with the benchmark compression threshold.
+   *
+   * @return the protocol channels
+   */
+  public static @NonNull ProtocolChannel channels() {
+    return new ProtocolChannel(new PacketEncoder(() -> BenchmarkSupport.THRESHOLD));
+  }
+
+  /**
+   * Returns a new {@link EmbeddedChannel} rebuilding the vanilla
+   * handler names, with a {@link PacketHandler} injected into it.
+   *
+   * Packets reaching the end of the pipeline in either
+   * direction are discarded.
+   *
+   * @param events the protocol events
+   * @return the injected channel
+   */
+  public static @NonNull EmbeddedChannel channel(final @NonNull ProtocolEvent events) {
+    return BenchmarkSupport.channel(events, BenchmarkSupport.channels());
+  }
+
+  /**
+   * Returns a new {@link EmbeddedChannel} in the play state rebuilding
+   * the vanilla handler names, with a {@link PacketHandler} injected
+   * into it using the specified {@link ProtocolChannel}.
+   *
+   * Packets reaching the end of the pipeline in either
+   * direction are discarded.
+   *
+   * @param events the protocol events
+   * @param channels the protocol channels
+   * @return the injected channel
+   */
+  public static @NonNull EmbeddedChannel channel(final @NonNull ProtocolEvent events, final @NonNull ProtocolChannel channels) {
+    final EmbeddedChannel channel = new EmbeddedChannel();
+    channel.attr(NetworkManager.PROTOCOL_ATTRIBUTE_KEY).set(EnumConnectionState.PLAY);
+    final ChannelProfile profile = new ChannelProfile(channel);
+    final PacketRemapper remapper = new PacketRemapper(BenchmarkSupport.LOGGER);
+    channel.pipeline()
+      .addLast("compress", new Discard())
+      .addLast("encoder", new Discard())
+      .addLast("decoder", new ChannelInboundHandlerAdapter())
+      .addLast("packet_handler", new Sink())
+      .addLast(new PacketHandler(BenchmarkSupport.LOGGER, channels, events, remapper, new FlushCoalescer(),
+        new PacketPriorities(), new PacketFirewall(new PacketRegistry(BenchmarkSupport.LOGGER)), new ProtocolMetrics(), new StallDetector(BenchmarkSupport.LOGGER), profile));
+    channel.pipeline().fireChannelActive();
+    return channel;
+  }
+
+  /**
+   * Returns the {@link ChannelProfile} of the specified
+   * injected channel.
+   *
+   * @param channel the injected channel
+   * @return the channel profile
+   */
+  public static @NonNull ChannelProfile profile(final @NonNull EmbeddedChannel channel) {
+    return ((PacketHandler) channel.pipeline().get(ProtocolInjector.CHANNEL_HANDLER)).profile();
+  }
+
+  private static final class Discard extends ChannelOutboundHandlerAdapter {
+    @Override
+    public void write(final ChannelHandlerContext context, final Object message, final ChannelPromise promise) {
+      ReferenceCountUtil.release(message);
+      promise.trySuccess();
+    }
+  }
+
+  private static final class Sink extends ChannelInboundHandlerAdapter {
+    @Override
+    public void channelRead(final ChannelHandlerContext context, final Object message) {
+      ReferenceCountUtil.release(message);
+    }
+  }
+}
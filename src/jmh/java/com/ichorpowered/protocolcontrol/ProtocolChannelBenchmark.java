@@ -0,0 +1,108 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol;
+
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.packet.PacketDirection;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.network.play.server.SPacketKeepAlive;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of sending the same packet to many
+ * players through the {@link ProtocolChannel}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolChannelBenchmark {
+  private final SPacketKeepAlive packet = new SPacketKeepAlive();
+  private final List<EmbeddedChannel> channels = new ArrayList<>();
+  private final List<ChannelProfile> profiles = new ArrayList<>();
+  private ProtocolEvent events;
+  private ProtocolChannel protocolChannel;
+
+  @Param({"1", "100"})
+  public int players;
+
+  @Setup
+  public void setup() {
+    this.events = BenchmarkSupport.events();
+    this.protocolChannel = BenchmarkSupport.channels();
+    for(int i = 0; i < this.players; i++) {
+      final EmbeddedChannel channel = BenchmarkSupport.channel(this.events, this.protocolChannel);
+      final ChannelProfile profile = BenchmarkSupport.profile(channel);
+      this.protocolChannel.set(UUID.randomUUID(), profile);
+      this.channels.add(channel);
+      this.profiles.add(profile);
+    }
+  }
+
+  @TearDown
+  public void teardown() {
+    for(final EmbeddedChannel channel : this.channels) {
+      channel.finishAndReleaseAll();
+    }
+    BenchmarkSupport.disable(this.events);
+  }
+
+  @Benchmark
+  public void send() {
+    for(final ChannelProfile profile : this.profiles) {
+      profile.send(PacketDirection.OUTGOING, this.packet);
+    }
+    this.runPendingTasks();
+  }
+
+  @Benchmark
+  public void broadcast() throws Exception {
+    this.protocolChannel.broadcast(this.packet, this.profiles);
+    this.runPendingTasks();
+  }
+
+  private void runPendingTasks() {
+    for(final EmbeddedChannel channel : this.channels) {
+      channel.runPendingTasks();
+    }
+  }
+}
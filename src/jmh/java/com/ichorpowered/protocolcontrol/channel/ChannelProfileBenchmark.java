@@ -0,0 +1,115 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.channel;
+
+import com.ichorpowered.protocolcontrol.BenchmarkSupport;
+import com.ichorpowered.protocolcontrol.ProtocolEvent;
+import com.ichorpowered.protocolcontrol.packet.PacketDirection;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.network.play.client.CPacketKeepAlive;
+import net.minecraft.network.play.server.SPacketKeepAlive;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of sending packets through a
+ * {@link ChannelProfile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelProfileBenchmark {
+  private final CPacketKeepAlive incoming = new CPacketKeepAlive();
+  private final SPacketKeepAlive outgoing = new SPacketKeepAlive();
+  private final List<SPacketKeepAlive> burst = Collections.nCopies(200, this.outgoing);
+  private ProtocolEvent events;
+  private EmbeddedChannel channel;
+  private ChannelProfile profile;
+
+  @Setup
+  public void setup() {
+    this.events = BenchmarkSupport.events();
+    this.channel = BenchmarkSupport.channel(this.events);
+    this.profile = BenchmarkSupport.profile(this.channel);
+  }
+
+  @TearDown
+  public void teardown() {
+    this.channel.finishAndReleaseAll();
+    BenchmarkSupport.disable(this.events);
+  }
+
+  @Benchmark
+  public void sendIncoming() {
+    this.profile.send(PacketDirection.INCOMING, this.incoming);
+    this.channel.runPendingTasks();
+  }
+
+  @Benchmark
+  public void sendOutgoing() {
+    this.profile.send(PacketDirection.OUTGOING, this.outgoing);
+    this.channel.runPendingTasks();
+  }
+
+  @Benchmark
+  public void sendOutgoingCurrentThread() {
+    this.profile.send(PacketDirection.OUTGOING, this.outgoing, true);
+  }
+
+  @Benchmark
+  public void sendOutgoingDirect() {
+    this.profile.sendDirect(PacketDirection.OUTGOING, this.outgoing);
+  }
+
+  @Benchmark
+  public void sendOutgoingBurst() {
+    for(final SPacketKeepAlive packet : this.burst) {
+      this.profile.send(PacketDirection.OUTGOING, packet);
+    }
+    this.channel.runPendingTasks();
+    this.channel.flush();
+  }
+
+  @Benchmark
+  public void sendAllOutgoingBurst() {
+    this.profile.sendAll(PacketDirection.OUTGOING, this.burst);
+    this.channel.runPendingTasks();
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.ichorpowered.protocolcontrol.BenchmarkSupport;
+import com.ichorpowered.protocolcontrol.ProtocolEvent;
+import com.ichorpowered.protocolcontrol.event.DispatchMode;
+import com.ichorpowered.protocolcontrol.event.PacketEvent;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.concurrent.TimeUnit;
+import net.kyori.event.method.annotation.Subscribe;
+import net.minecraft.network.play.client.CPacketChat;
+import net.minecraft.network.play.client.CPacketKeepAlive;
+import net.minecraft.network.play.server.SPacketChat;
+import net.minecraft.network.play.server.SPacketKeepAlive;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of the injected {@link PacketHandler.Incoming}
+ * and {@link PacketHandler.Outgoing} handlers for a keep alive
+ * packet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketHandlerBenchmark {
+  @Param
+  public Subscribers subscribers;
+
+  @Param
+  public DispatchMode mode;
+
+  private final CPacketKeepAlive incoming = new CPacketKeepAlive();
+  private final SPacketKeepAlive outgoing = new SPacketKeepAlive();
+  private ProtocolEvent events;
+  private EmbeddedChannel channel;
+
+  @Setup
+  public void setup() {
+    this.events = BenchmarkSupport.events();
+    if(this.subscribers == Subscribers.OTHER) this.events.register(new OtherListener(), this.mode);
+    if(this.subscribers == Subscribers.SAME) this.events.register(new SameListener(), this.mode);
+    if(this.subscribers == Subscribers.FUNCTIONAL) {
+      this.events.on(CPacketKeepAlive.class, PacketDirection.INCOMING, this.mode, (profile, packet, event) -> {});
+      this.events.on(SPacketKeepAlive.class, PacketDirection.OUTGOING, this.mode, (profile, packet, event) -> {});
+    }
+    this.channel = BenchmarkSupport.channel(this.events);
+  }
+
+  @TearDown
+  public void teardown() {
+    this.channel.finishAndReleaseAll();
+    BenchmarkSupport.disable(this.events);
+  }
+
+  @Benchmark
+  public void channelRead() {
+    this.channel.pipeline().fireChannelRead(this.incoming);
+  }
+
+  @Benchmark
+  public void write() {
+    this.channel.write(this.outgoing, this.channel.voidPromise());
+  }
+
+  public enum Subscribers {
+    /**
+     * No listeners are registered.
+     */
+    NONE,
+
+    /**
+     * A listener is registered for a different packet type.
+     */
+    OTHER,
+
+    /**
+     * A listener is registered for the same packet type.
+     */
+    SAME,
+
+    /**
+     * A functional listener is registered for the same packet type.
+     */
+    FUNCTIONAL
+  }
+
+  public static final class OtherListener {
+    @Subscribe
+    public void onIncoming(final PacketEvent<CPacketChat> event) {
+    }
+
+    @Subscribe
+    public void onOutgoing(final PacketEvent<SPacketChat> event) {
+    }
+  }
+
+  public static final class SameListener {
+    @Subscribe
+    public void onIncoming(final PacketEvent<CPacketKeepAlive> event) {
+    }
+
+    @Subscribe
+    public void onOutgoing(final PacketEvent<SPacketKeepAlive> event) {
+    }
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.ichorpowered.protocolcontrol.BenchmarkSupport;
+import com.mojang.authlib.GameProfile;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.network.login.server.SPacketLoginSuccess;
+import net.minecraft.network.play.server.SPacketEntity;
+import net.minecraft.network.play.server.SPacketEntityVelocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of wrapping packets and accessing their
+ * fields through the {@link PacketRemapper}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketRemapperBenchmark {
+  private final GameProfile profile = new GameProfile(UUID.randomUUID(), "benchmark");
+  private final SPacketLoginSuccess login = new SPacketLoginSuccess(this.profile);
+  private final SPacketEntityVelocity velocity = new SPacketEntityVelocity();
+  private final SPacketEntity.S15PacketEntityRelMove move = new SPacketEntity.S15PacketEntityRelMove();
+  private PacketRemapper remapper;
+  private PacketRemapper.Wrapped<SPacketLoginSuccess> wrappedLogin;
+  private PacketRemapper.Wrapped<SPacketEntityVelocity> wrappedVelocity;
+  private PacketRemapper.Wrapped<SPacketEntity.S15PacketEntityRelMove> wrappedMove;
+  private PacketRemapper.Slot<Integer> velocityY;
+  private int value;
+
+  @Setup
+  public void setup() {
+    this.remapper = new PacketRemapper(BenchmarkSupport.LOGGER);
+    this.wrappedLogin = this.remapper.wrap(this.login);
+    this.wrappedVelocity = this.remapper.wrap(this.velocity);
+    this.wrappedMove = this.remapper.wrap(this.move);
+    this.velocityY = this.remapper.structure(SPacketEntityVelocity.class).resolve(int.class, 1);
+  }
+
+  @Benchmark
+  public PacketRemapper.Wrapped<SPacketEntityVelocity> wrap() {
+    return this.remapper.wrap(this.velocity);
+  }
+
+  @Benchmark
+  public int view() throws Throwable {
+    return this.remapper.view(this.velocity).getInt(1);
+  }
+
+  @Benchmark
+  public SPacketEntityVelocity copy() throws Throwable {
+    return this.remapper.copy(this.velocity);
+  }
+
+  @Benchmark
+  public SPacketLoginSuccess copyDeep() throws Throwable {
+    return this.remapper.copy(this.login, CopyMode.DEEP);
+  }
+
+  @Benchmark
+  public GameProfile get() throws Throwable {
+    return this.wrappedLogin.get(GameProfile.class, 0);
+  }
+
+  @Benchmark
+  public void set() throws Throwable {
+    this.wrappedLogin.set(GameProfile.class, 0, this.profile);
+  }
+
+  @Benchmark
+  public int getInt() throws Throwable {
+    return this.wrappedVelocity.getInt(1);
+  }
+
+  @Benchmark
+  public void setInt() throws Throwable {
+    this.wrappedVelocity.setInt(1, this.value++);
+  }
+
+  @Benchmark
+  public int getIntSlot() throws Throwable {
+    return this.wrappedVelocity.getInt(this.velocityY);
+  }
+
+  @Benchmark
+  public void setIntSlot() throws Throwable {
+    this.wrappedVelocity.setInt(this.velocityY, this.value++);
+  }
+
+  @Benchmark
+  public byte getByte() throws Throwable {
+    return this.wrappedMove.getByte(0);
+  }
+
+  @Benchmark
+  public boolean getBoolean() throws Throwable {
+    return this.wrappedMove.getBoolean(0);
+  }
+}
@@ -25,10 +25,17 @@
 package com.ichorpowered.protocolcontrol;
 
 import com.google.common.collect.Maps;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.packet.EncodedPacket;
+import com.ichorpowered.protocolcontrol.packet.PacketEncoder;
+import io.netty.channel.Channel;
+import java.io.IOException;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.Packet;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -40,8 +47,14 @@ import static java.util.Objects.requireNonNull;
 @Singleton
 public final class ProtocolChannel {
   private final ConcurrentMap<UUID, ChannelProfile> channels = Maps.newConcurrentMap();
+  private final PacketEncoder encoder;
   private boolean enabled = false;
 
+  @Inject
+  public ProtocolChannel(final PacketEncoder encoder) {
+    this.encoder = encoder;
+  }
+
   protected void enable() {
     if(this.enabled) return;
     this.enabled = true;
@@ -102,4 +115,64 @@ public final class ProtocolChannel {
   public @Nullable ChannelProfile profile(final @NonNull UUID player) {
     return this.channels.get(requireNonNull(player, "player"));
   }
+
+  /**
+   * Sends the specified {@link EncodedPacket} to each of the
+   * specified {@link ChannelProfile}s.
+   *
+   * Profiles that are inactive, or are not in the connection state
+   * the packet was encoded for, are skipped.
+   *
+   * @param packet the encoded packet
+   * @param profiles the channel profiles
+   */
+  public void broadcast(final @NonNull EncodedPacket packet, final @NonNull Iterable<ChannelProfile> profiles) {
+    requireNonNull(packet, "packet");
+    for(final ChannelProfile profile : requireNonNull(profiles, "profiles")) {
+      final Channel channel = profile.channel();
+      if(!profile.active() || !channel.isActive() || PacketEncoder.state(channel) != packet.state()) continue;
+      profile.send(packet);
+    }
+  }
+
+  /**
+   * Sends the specified outgoing {@link Packet} to every player
+   * {@link ChannelProfile}, encoding it only once.
+   *
+   * @param packet the packet
+   * @throws Exception exceptions attempting to encode the packet
+   */
+  public void broadcast(final @NonNull Packet<?> packet) throws Exception {
+    this.broadcast(packet, this.channels.values());
+  }
+
+  /**
+   * Sends the specified outgoing {@link Packet} to each of the
+   * specified {@link ChannelProfile}s, encoding and compressing it
+   * only once.
+   *
+   * Profiles that are inactive, or are not in the connection state
+   * the packet belongs to, are skipped.
+   *
+   * @param packet the packet
+   * @param profiles the channel profiles
+   * @throws Exception exceptions attempting to encode the packet
+   */
+  public void broadcast(final @NonNull Packet<?> packet, final @NonNull Iterable<ChannelProfile> profiles) throws Exception {
+    requireNonNull(packet, "packet");
+    requireNonNull(profiles, "profiles");
+    final EnumConnectionState state = EnumConnectionState.getFromPacket(packet);
+    if(state == null) throw new IOException("Unable to encode unregistered packet");
+    EncodedPacket encoded = null;
+    try {
+      for(final ChannelProfile profile : profiles) {
+        final Channel channel = profile.channel();
+        if(!profile.active() || !channel.isActive() || PacketEncoder.state(channel) != state) continue;
+        if(encoded == null) encoded = this.encoder.encode(channel.alloc(), state, packet);
+        profile.send(encoded);
+      }
+    } finally {
+      if(encoded != null) encoded.release();
+    }
+  }
 }
@@ -27,19 +27,34 @@ package com.ichorpowered.protocolcontrol;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.event.Direction;
+import com.ichorpowered.protocolcontrol.event.DispatchMode;
+import com.ichorpowered.protocolcontrol.event.PacketDispatcher;
 import com.ichorpowered.protocolcontrol.event.PacketEvent;
+import com.ichorpowered.protocolcontrol.event.PacketFilter;
+import com.ichorpowered.protocolcontrol.event.PacketListener;
+import com.ichorpowered.protocolcontrol.event.Subscription;
+import com.ichorpowered.protocolcontrol.metrics.ListenerProfiler;
+import com.ichorpowered.protocolcontrol.packet.PacketDirection;
+import com.ichorpowered.protocolcontrol.packet.PacketRegistry;
+import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
 import com.ichorpowered.protocolcontrol.util.Exceptions;
-import java.util.Collection;
+import com.ichorpowered.protocolcontrol.util.StripedExecutor;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import net.kyori.event.PostResult;
-import net.kyori.event.SimpleEventBus;
-import net.kyori.event.method.MethodSubscriptionAdapter;
-import net.kyori.event.method.SimpleMethodSubscriptionAdapter;
+import net.kyori.event.method.EventExecutor;
+import net.kyori.event.method.annotation.PostOrder;
+import net.kyori.event.method.annotation.Subscribe;
 import net.kyori.event.method.asm.ASMEventExecutorFactory;
 import net.minecraft.network.Packet;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 
 import static java.util.Objects.requireNonNull;
@@ -49,22 +64,35 @@ import static java.util.Objects.requireNonNull;
  */
 @Singleton
 public final class ProtocolEvent {
+  private static final DispatchMode[] MODES = DispatchMode.values();
+  private static final PacketDispatcher.Listener[] NONE = new PacketDispatcher.Listener[0];
   private final Logger logger;
-  private SimpleEventBus<Object> bus;
-  private MethodSubscriptionAdapter<Object> methodAdapter;
-  private ExecutorService service;
+  private final ListenerProfiler profiler;
+  private final PacketRegistry registry;
+  private final PacketRemapper remapper;
+  private final PacketDispatcher dispatcher;
+  private EventExecutor.Factory<PacketEvent<?>, Object> executors;
+  private StripedExecutor service;
+  private volatile DispatchMode mode = DispatchMode.EXECUTOR;
+  private volatile boolean asyncMutation = false;
   private boolean enabled = false;
 
   @Inject
-  public ProtocolEvent(final Logger logger) {
+  public ProtocolEvent(final Logger logger,
+                       final ListenerProfiler profiler,
+                       final PacketRegistry registry,
+                       final PacketRemapper remapper) {
     this.logger = logger;
+    this.profiler = profiler;
+    this.registry = registry;
+    this.remapper = remapper;
+    this.dispatcher = new PacketDispatcher(registry);
   }
 
   protected void enable() {
     if(this.enabled) return;
-    this.bus = new SimpleEventBus<>(Object.class);
-    this.methodAdapter = new SimpleMethodSubscriptionAdapter<>(this.bus, new ASMEventExecutorFactory<>());
-    this.service = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
+    this.executors = this.profiler.wrap(new ASMEventExecutorFactory<>());
+    this.service = new StripedExecutor(Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
       .setNameFormat("ProtocolControl Network Executor - #%d")
       .setDaemon(true)
       .build());
@@ -73,7 +101,7 @@ public final class ProtocolEvent {
 
   protected void disable() {
     if(!this.enabled) return;
-    this.bus.unregisterAll();
+    this.dispatcher.unregisterAll();
     this.service.shutdownNow();
     this.enabled = false;
   }
@@ -87,6 +115,16 @@ public final class ProtocolEvent {
     return this.enabled;
   }
 
+  /**
+   * Returns the {@link ListenerProfiler} timing the registered
+   * listeners.
+   *
+   * @return the listener profiler
+   */
+  public @NonNull ListenerProfiler profiler() {
+    return this.profiler;
+  }
+
   /**
    * Returns {@code true} if there are any {@link PacketEvent}s
    * being subscribed to.
@@ -95,16 +133,376 @@ public final class ProtocolEvent {
    */
   public boolean hasSubscribers() {
     if(!this.enabled) return false;
-    return this.bus.hasSubscribers(PacketEvent.class);
+    return this.dispatcher.any();
+  }
+
+  /**
+   * Returns {@code true} if there are any {@link PacketEvent}s
+   * being subscribed to with the specified {@link DispatchMode}.
+   *
+   * @param mode the dispatch mode
+   * @return whether there are any subscribers for the mode
+   */
+  public boolean hasSubscribers(final @NonNull DispatchMode mode) {
+    if(!this.enabled) return false;
+    return this.dispatcher.any(requireNonNull(mode, "mode"));
+  }
+
+  /**
+   * Returns {@code true} if there are any {@link PacketEvent}s
+   * being subscribed to for the specified packet class in the
+   * specified {@link PacketDirection}.
+   *
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @return whether there are any subscribers for the packet
+   */
+  public boolean hasSubscribers(final @NonNull Class<?> packet, final @NonNull PacketDirection direction) {
+    if(!this.enabled) return false;
+    return this.dispatcher.listeners(packet, direction, DispatchMode.INLINE).length > 0
+      || this.dispatcher.listeners(packet, direction, DispatchMode.EXECUTOR).length > 0;
+  }
+
+  /**
+   * Returns {@code true} if there are any {@link PacketEvent}s
+   * being subscribed to for the specified packet class in the
+   * specified {@link PacketDirection} with the specified
+   * {@link DispatchMode}.
+   *
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param mode the dispatch mode
+   * @return whether there are any subscribers for the packet and mode
+   */
+  public boolean hasSubscribers(final @NonNull Class<?> packet, final @NonNull PacketDirection direction,
+                                final @NonNull DispatchMode mode) {
+    if(!this.enabled) return false;
+    return this.dispatcher.listeners(packet, direction, mode).length > 0;
+  }
+
+  /**
+   * Returns {@code true} if there are any {@link PacketEvent}s
+   * being subscribed to for the specified packet class in the
+   * specified {@link PacketDirection}, by listeners registered
+   * for every profile or for the specified {@link ChannelProfile}.
+   *
+   * @param profile the channel profile
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @return whether there are any subscribers for the packet
+   */
+  public boolean hasSubscribers(final @NonNull ChannelProfile profile, final @NonNull Class<?> packet,
+                                final @NonNull PacketDirection direction) {
+    if(this.hasSubscribers(packet, direction)) return true;
+    if(!this.enabled) return false;
+    final PacketDispatcher scoped = profile.dispatcher();
+    return scoped != null && (scoped.listeners(packet, direction, DispatchMode.INLINE).length > 0
+      || scoped.listeners(packet, direction, DispatchMode.EXECUTOR).length > 0);
+  }
+
+  /**
+   * Returns {@code true} if there are any {@link PacketEvent}s
+   * being subscribed to for the specified packet class in the
+   * specified {@link PacketDirection} with the specified
+   * {@link DispatchMode}, by listeners registered for every
+   * profile or for the specified {@link ChannelProfile}.
+   *
+   * @param profile the channel profile
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param mode the dispatch mode
+   * @return whether there are any subscribers for the packet and mode
+   */
+  public boolean hasSubscribers(final @NonNull ChannelProfile profile, final @NonNull Class<?> packet,
+                                final @NonNull PacketDirection direction, final @NonNull DispatchMode mode) {
+    if(this.hasSubscribers(packet, direction, mode)) return true;
+    if(!this.enabled) return false;
+    final PacketDispatcher scoped = profile.dispatcher();
+    return scoped != null && scoped.listeners(packet, direction, mode).length > 0;
+  }
+
+  /**
+   * Returns a new {@link PacketEvent} for the specified packet in the
+   * specified {@link PacketDirection} if any listener registered for
+   * every profile or for the specified {@link ChannelProfile} accepts
+   * it, otherwise returns {@code null}.
+   *
+   * The {@link PacketFilter} of each listener is tested and recorded
+   * once on the calling thread, and firing the event only invokes
+   * the listeners that accepted the packet.
+   *
+   * @param profile the channel profile
+   * @param direction the packet direction
+   * @param packet the packet object
+   * @param <T> the packet type
+   * @return the packet event, if accepted
+   */
+  public <T extends Packet<?>> @Nullable PacketEvent<T> event(final @NonNull ChannelProfile profile, final @NonNull PacketDirection direction,
+                                                             final @NonNull T packet) {
+    requireNonNull(profile, "profile");
+    requireNonNull(direction, "direction");
+    requireNonNull(packet, "packet");
+    if(!this.enabled) return null;
+    final PacketDispatcher scoped = profile.dispatcher();
+    if(!this.dispatcher.any() && (scoped == null || !scoped.any())) return null;
+    final Class<?> type = packet.getClass();
+    PacketDispatcher.Listener[][] listeners = null;
+    for(final DispatchMode mode : ProtocolEvent.MODES) {
+      final PacketDispatcher.Listener[] selected = this.select(type, direction, mode, scoped, profile, packet);
+      if(selected.length == 0) continue;
+      if(listeners == null) {
+        listeners = new PacketDispatcher.Listener[ProtocolEvent.MODES.length][];
+        Arrays.fill(listeners, ProtocolEvent.NONE);
+      }
+      listeners[mode.ordinal()] = selected;
+    }
+    return listeners != null ? new PacketEvent<>(profile, direction, packet, this.remapper, listeners) : null;
   }
 
   /**
-   * Registers the specified packet listener.
+   * Returns {@code true} if firing the specified {@link PacketEvent}
+   * would invoke any listener with the specified {@link DispatchMode}.
+   *
+   * @param event the packet event
+   * @param mode the dispatch mode
+   * @return whether any listener is invoked for the mode
+   */
+  public boolean dispatches(final @NonNull PacketEvent<?> event, final @NonNull DispatchMode mode) {
+    final PacketDispatcher.Listener[] selected = requireNonNull(event, "event").listeners(mode);
+    if(selected != null) return this.enabled && selected.length > 0;
+    return this.hasSubscribers(event.profile(), event.packet().getClass(), event.direction(), mode);
+  }
+
+  /**
+   * Returns the default {@link DispatchMode} used for listeners
+   * registered without one.
+   *
+   * @return the default dispatch mode
+   */
+  public @NonNull DispatchMode mode() {
+    return this.mode;
+  }
+
+  /**
+   * Sets the default {@link DispatchMode} used for listeners
+   * registered without one.
+   *
+   * @param mode the default dispatch mode
+   */
+  public void mode(final @NonNull DispatchMode mode) {
+    this.mode = requireNonNull(mode, "mode");
+  }
+
+  /**
+   * Returns {@code true} if channels are suspended rather than
+   * blocked while {@link DispatchMode#EXECUTOR} listeners are
+   * handling a packet.
+   *
+   * @return whether async mutation is enabled
+   */
+  public boolean asyncMutation() {
+    return this.asyncMutation;
+  }
+
+  /**
+   * Sets whether channels are suspended rather than blocked while
+   * {@link DispatchMode#EXECUTOR} listeners are handling a packet.
+   *
+   * When enabled, a channel stops reading and queues later writes
+   * until the listeners complete, after which the packet continues
+   * and the queued packets are handled in order. The channel event
+   * loop is never blocked while the channel is in the play state.
+   *
+   * Channels in any other state are still blocked, as vanilla
+   * switches the connection state of the channel from the packets
+   * it sends and receives, so a packet held back there would be
+   * encoded or followed by frames decoded in the wrong state.
+   *
+   * @param asyncMutation whether async mutation is enabled
+   */
+  public void asyncMutation(final boolean asyncMutation) {
+    this.asyncMutation = asyncMutation;
+  }
+
+  /**
+   * Registers the specified packet listener with the
+   * default {@link DispatchMode}.
    *
    * @param listener the packet listener
    */
   public void register(final @NonNull Object listener) {
-    this.methodAdapter.register(requireNonNull(listener, "listener"));
+    this.register(listener, this.mode);
+  }
+
+  /**
+   * Registers the specified packet listener with the
+   * specified {@link DispatchMode}.
+   *
+   * Each method annotated with {@link Subscribe} taking a single
+   * {@link PacketEvent} listens to the packet class of its type
+   * argument, or to every packet class if it has none, in the
+   * {@link PacketDirection} of its {@link Direction}, or both
+   * directions if it has none.
+   *
+   * @param listener the packet listener
+   * @param mode the dispatch mode
+   */
+  public void register(final @NonNull Object listener, final @NonNull DispatchMode mode) {
+    this.dispatcher.registerAll(this.listeners(listener, mode));
+  }
+
+  /**
+   * Registers the specified packet listener for the specified
+   * {@link ChannelProfile} only, with the default
+   * {@link DispatchMode}.
+   *
+   * @param profile the channel profile
+   * @param listener the packet listener
+   */
+  public void register(final @NonNull ChannelProfile profile, final @NonNull Object listener) {
+    this.register(profile, listener, this.mode);
+  }
+
+  /**
+   * Registers the specified packet listener for the specified
+   * {@link ChannelProfile} only, with the specified
+   * {@link DispatchMode}.
+   *
+   * The listener is stored on the profile, and is invoked after
+   * the listeners registered for every profile.
+   *
+   * @param profile the channel profile
+   * @param listener the packet listener
+   * @param mode the dispatch mode
+   */
+  public void register(final @NonNull ChannelProfile profile, final @NonNull Object listener, final @NonNull DispatchMode mode) {
+    requireNonNull(profile, "profile");
+    profile.dispatcher(this.registry).registerAll(this.listeners(listener, mode));
+  }
+
+  /**
+   * Registers the specified {@link PacketListener} for the
+   * specified packet class in the specified {@link PacketDirection}
+   * with the default {@link DispatchMode}.
+   *
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param listener the packet listener
+   * @param <T> the packet type
+   * @return a subscription to unregister the listener
+   */
+  public <T extends Packet<?>> @NonNull Subscription on(final @NonNull Class<T> packet, final @NonNull PacketDirection direction,
+                                                        final @NonNull PacketListener<T> listener) {
+    return this.on(packet, direction, this.mode, listener);
+  }
+
+  /**
+   * Registers the specified {@link PacketListener} for the
+   * specified packet class in the specified {@link PacketDirection}
+   * with the specified {@link DispatchMode}.
+   *
+   * The listener is invoked directly, without reflection, and
+   * only for packets of exactly the specified class.
+   *
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param mode the dispatch mode
+   * @param listener the packet listener
+   * @param <T> the packet type
+   * @return a subscription to unregister the listener
+   */
+  public <T extends Packet<?>> @NonNull Subscription on(final @NonNull Class<T> packet, final @NonNull PacketDirection direction,
+                                                        final @NonNull DispatchMode mode, final @NonNull PacketListener<T> listener) {
+    return this.subscribe(this.dispatcher, packet, direction, mode, null, listener);
+  }
+
+  /**
+   * Registers the specified {@link PacketListener} for the
+   * specified packet class in the specified {@link PacketDirection}
+   * with the specified {@link DispatchMode}, invoked only for the
+   * packets accepted by the specified {@link PacketFilter}.
+   *
+   * Packets rejected by the filters of every listener are not
+   * dispatched at all, and no {@link PacketEvent} is created
+   * for them.
+   *
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param mode the dispatch mode
+   * @param filter the packet filter
+   * @param listener the packet listener
+   * @param <T> the packet type
+   * @return a subscription to unregister the listener
+   */
+  public <T extends Packet<?>> @NonNull Subscription on(final @NonNull Class<T> packet, final @NonNull PacketDirection direction,
+                                                        final @NonNull DispatchMode mode, final @NonNull PacketFilter<T> filter,
+                                                        final @NonNull PacketListener<T> listener) {
+    return this.subscribe(this.dispatcher, packet, direction, mode, requireNonNull(filter, "filter"), listener);
+  }
+
+  /**
+   * Registers the specified {@link PacketListener} for the
+   * specified packet class in the specified {@link PacketDirection}
+   * for the specified {@link ChannelProfile} only, with the default
+   * {@link DispatchMode}.
+   *
+   * @param profile the channel profile
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param listener the packet listener
+   * @param <T> the packet type
+   * @return a subscription to unregister the listener
+   */
+  public <T extends Packet<?>> @NonNull Subscription on(final @NonNull ChannelProfile profile, final @NonNull Class<T> packet,
+                                                        final @NonNull PacketDirection direction, final @NonNull PacketListener<T> listener) {
+    return this.on(profile, packet, direction, this.mode, listener);
+  }
+
+  /**
+   * Registers the specified {@link PacketListener} for the
+   * specified packet class in the specified {@link PacketDirection}
+   * for the specified {@link ChannelProfile} only, with the specified
+   * {@link DispatchMode}.
+   *
+   * The listener is stored on the profile, and is invoked after
+   * the listeners registered for every profile.
+   *
+   * @param profile the channel profile
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param mode the dispatch mode
+   * @param listener the packet listener
+   * @param <T> the packet type
+   * @return a subscription to unregister the listener
+   */
+  public <T extends Packet<?>> @NonNull Subscription on(final @NonNull ChannelProfile profile, final @NonNull Class<T> packet,
+                                                        final @NonNull PacketDirection direction, final @NonNull DispatchMode mode,
+                                                        final @NonNull PacketListener<T> listener) {
+    requireNonNull(profile, "profile");
+    return this.subscribe(profile.dispatcher(this.registry), packet, direction, mode, null, listener);
+  }
+
+  /**
+   * Registers the specified {@link PacketListener} for the
+   * specified packet class in the specified {@link PacketDirection}
+   * for the specified {@link ChannelProfile} only, with the specified
+   * {@link DispatchMode}, invoked only for the packets accepted by
+   * the specified {@link PacketFilter}.
+   *
+   * @param profile the channel profile
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param mode the dispatch mode
+   * @param filter the packet filter
+   * @param listener the packet listener
+   * @param <T> the packet type
+   * @return a subscription to unregister the listener
+   */
+  public <T extends Packet<?>> @NonNull Subscription on(final @NonNull ChannelProfile profile, final @NonNull Class<T> packet,
+                                                        final @NonNull PacketDirection direction, final @NonNull DispatchMode mode,
+                                                        final @NonNull PacketFilter<T> filter, final @NonNull PacketListener<T> listener) {
+    requireNonNull(profile, "profile");
+    return this.subscribe(profile.dispatcher(this.registry), packet, direction, mode, requireNonNull(filter, "filter"), listener);
   }
 
   /**
@@ -113,13 +511,34 @@ public final class ProtocolEvent {
    * @param listener the packet listener
    */
   public void unregister(final @NonNull Object listener) {
-    this.methodAdapter.unregister(requireNonNull(listener, "listener"));
+    requireNonNull(listener, "listener");
+    this.dispatcher.unregister(registered -> registered.owner() == listener);
+  }
+
+  /**
+   * Unregisters the specified packet listener from the specified
+   * {@link ChannelProfile}.
+   *
+   * @param profile the channel profile
+   * @param listener the packet listener
+   */
+  public void unregister(final @NonNull ChannelProfile profile, final @NonNull Object listener) {
+    requireNonNull(profile, "profile");
+    requireNonNull(listener, "listener");
+    final PacketDispatcher dispatcher = profile.dispatcher();
+    if(dispatcher != null) dispatcher.unregister(registered -> registered.owner() == listener);
   }
 
   /**
    * Fires the specified {@link PacketEvent} and returns a
    * {@link CompletableFuture}.
    *
+   * Events for the same {@link ChannelProfile}
+   * are always handled in the order they were fired.
+   *
+   * Listeners registered with {@link DispatchMode#INLINE} are
+   * invoked on the calling thread before this method returns.
+   *
    * @param event the packet event
    * @param <T> the packet type
    * @return a completable future
@@ -127,38 +546,197 @@ public final class ProtocolEvent {
   public <T extends Packet<?>> @NonNull CompletableFuture<PacketEvent<T>> fire(final @NonNull PacketEvent<T> event) {
     requireNonNull(event, "event");
     if(!this.enabled) return CompletableFuture.completedFuture(event);
+    final PacketDispatcher.Listener[] inline = this.listeners(event, DispatchMode.INLINE);
+    final PacketDispatcher.Listener[] executor = this.listeners(event, DispatchMode.EXECUTOR);
+    this.postEvent(inline, event);
+    if(executor.length == 0) return CompletableFuture.completedFuture(event);
     final CompletableFuture<PacketEvent<T>> eventFuture = new CompletableFuture<>();
-    this.service.execute(() -> {
-      this.postEvent(event);
+    this.service.execute(event.profile(), () -> {
+      this.postEvent(executor, event);
       eventFuture.complete(event);
     });
     return eventFuture;
   }
 
+  /**
+   * Fires the specified {@link PacketEvent} to the listeners
+   * registered with {@link DispatchMode#INLINE} on the calling
+   * thread.
+   *
+   * @param event the packet event
+   * @param <T> the packet type
+   */
+  public <T extends Packet<?>> void fireInline(final @NonNull PacketEvent<T> event) {
+    requireNonNull(event, "event");
+    if(!this.enabled) return;
+    this.postEvent(this.listeners(event, DispatchMode.INLINE), event);
+  }
+
   /**
    * Fires the specified {@link PacketEvent} and ignores the
    * result.
    *
+   * Events for the same {@link ChannelProfile}
+   * are always handled in the order they were fired.
+   *
+   * Listeners registered with {@link DispatchMode#INLINE} are
+   * invoked on the calling thread before this method returns.
+   *
    * @param event the packet event
    * @param <T> the packet type
    */
   public <T extends Packet<?>> void fireAndForget(final @NonNull PacketEvent<T> event) {
     requireNonNull(event, "event");
     if(!this.enabled) return;
-    this.service.execute(() -> this.postEvent(event));
+    final PacketDispatcher.Listener[] inline = this.listeners(event, DispatchMode.INLINE);
+    final PacketDispatcher.Listener[] executor = this.listeners(event, DispatchMode.EXECUTOR);
+    this.postEvent(inline, event);
+    if(executor.length == 0) return;
+    this.service.execute(event.profile(), () -> this.postEvent(executor, event));
+  }
+
+  private @NonNull List<PacketDispatcher.Listener> listeners(final @NonNull Object listener, final @NonNull DispatchMode mode) {
+    requireNonNull(listener, "listener");
+    requireNonNull(mode, "mode");
+    if(!this.enabled) throw new IllegalStateException("Unable to register a listener while events are disabled");
+    final List<PacketDispatcher.Listener> listeners = new ArrayList<>();
+    for(final Method method : listener.getClass().getDeclaredMethods()) {
+      if(!method.isAnnotationPresent(Subscribe.class)) continue;
+      if(method.getParameterCount() != 1 || !method.getParameterTypes()[0].isAssignableFrom(PacketEvent.class)) {
+        throw new IllegalArgumentException("Listener method " + method + " must take a single PacketEvent");
+      }
+      final EventExecutor<PacketEvent<?>, Object> executor;
+      try {
+        executor = this.executors.create(listener, method);
+      } catch(Exception exception) {
+        throw new IllegalArgumentException("Unable to create an executor for listener method " + method, exception);
+      }
+      final Direction direction = method.getAnnotation(Direction.class);
+      final PostOrder order = method.getAnnotation(PostOrder.class);
+      listeners.add(new PacketDispatcher.Listener(listener, ProtocolEvent.packet(method), direction != null ? direction.value() : null, mode,
+        order != null ? order.value() : 0, event -> executor.invoke(listener, event)));
+    }
+    return listeners;
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Packet<?>> @NonNull Subscription subscribe(final @NonNull PacketDispatcher dispatcher, final @NonNull Class<T> packet,
+                                                                final @NonNull PacketDirection direction, final @NonNull DispatchMode mode,
+                                                                final @Nullable PacketFilter<T> filter,
+                                                                final @NonNull PacketListener<T> listener) {
+    requireNonNull(packet, "packet");
+    requireNonNull(direction, "direction");
+    requireNonNull(mode, "mode");
+    requireNonNull(listener, "listener");
+    if(!this.enabled) throw new IllegalStateException("Unable to register a listener while events are disabled");
+    final PacketDispatcher.Listener registered = new PacketDispatcher.Listener(listener, packet, direction, mode, 0,
+      filter != null ? (profile, value) -> filter.test(profile, this.remapper.view((T) value)) : null,
+      this.profiler.wrap(listener, event -> listener.handle(event.profile(), (T) event.packet(), (PacketEvent<T>) event)));
+    dispatcher.register(registered);
+    return new Registered(dispatcher, registered);
+  }
+
+  private PacketDispatcher.@NonNull Listener @NonNull [] listeners(final @NonNull PacketEvent<?> event, final @NonNull DispatchMode mode) {
+    final PacketDispatcher.Listener[] selected = event.listeners(mode);
+    if(selected != null) return selected;
+    return this.select(event.packet().getClass(), event.direction(), mode, event.profile().dispatcher(), event.profile(), event.packet());
+  }
+
+  private PacketDispatcher.@NonNull Listener @NonNull [] select(final @NonNull Class<?> type, final @NonNull PacketDirection direction,
+                                                                 final @NonNull DispatchMode mode, final @Nullable PacketDispatcher scoped,
+                                                                 final @NonNull ChannelProfile profile, final @NonNull Packet<?> packet) {
+    final PacketDispatcher.Listener[] global = this.dispatcher.listeners(type, direction, mode);
+    final PacketDispatcher.Listener[] local = scoped != null ? scoped.listeners(type, direction, mode) : ProtocolEvent.NONE;
+    if(local.length == 0 && !ProtocolEvent.filtered(global)) return global;
+    final PacketDispatcher.Listener[] selected = new PacketDispatcher.Listener[global.length + local.length];
+    int count = 0;
+    for(final PacketDispatcher.Listener listener : global) {
+      if(this.test(listener, profile, packet)) selected[count++] = listener;
+    }
+    for(final PacketDispatcher.Listener listener : local) {
+      if(this.test(listener, profile, packet)) selected[count++] = listener;
+    }
+    return count == selected.length ? selected : Arrays.copyOf(selected, count);
   }
 
-  private <T extends Packet<?>> void postEvent(final @NonNull PacketEvent<T> event) {
-    final PostResult result = this.bus.post(event);
-    final Collection<Throwable> exceptions = result.exceptions().values();
-    for(final Throwable throwable : exceptions) {
+  private boolean test(final PacketDispatcher.@NonNull Listener listener, final @NonNull ChannelProfile profile,
+                       final @NonNull Packet<?> packet) {
+    if(!listener.filtered()) return true;
+    boolean passed = false;
+    try {
+      passed = listener.test(profile, packet);
+    } catch(Throwable throwable) {
       Exceptions.catchingReport(
         throwable,
         this.logger,
         PacketEvent.class,
         "event",
-        "Encountered a minor exception attempting to post a packet event"
+        "Encountered a minor exception attempting to test a packet filter"
       );
     }
+    listener.record(passed);
+    return passed;
+  }
+
+  private static boolean filtered(final PacketDispatcher.@NonNull Listener @NonNull [] listeners) {
+    for(final PacketDispatcher.Listener listener : listeners) {
+      if(listener.filtered()) return true;
+    }
+    return false;
+  }
+
+  private static @Nullable Class<?> packet(final @NonNull Method method) {
+    final Type type = method.getGenericParameterTypes()[0];
+    if(type instanceof ParameterizedType) {
+      final Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+      if(argument instanceof Class) return (Class<?>) argument;
+    }
+    return null;
+  }
+
+  private <T extends Packet<?>> void postEvent(final PacketDispatcher.@NonNull Listener @NonNull [] listeners,
+                                               final @NonNull PacketEvent<T> event) {
+    for(final PacketDispatcher.Listener listener : listeners) {
+      try {
+        listener.invoke(event);
+      } catch(Throwable throwable) {
+        Exceptions.catchingReport(
+          throwable,
+          this.logger,
+          PacketEvent.class,
+          "event",
+          "Encountered a minor exception attempting to post a packet event"
+        );
+      }
+    }
+  }
+
+  /**
+   * A {@link Subscription} to a listener registered with a
+   * {@link PacketDispatcher}.
+   */
+  private static final class Registered implements Subscription {
+    private final PacketDispatcher dispatcher;
+    private final PacketDispatcher.Listener listener;
+
+    /* package */ Registered(final @NonNull PacketDispatcher dispatcher, final PacketDispatcher.@NonNull Listener listener) {
+      this.dispatcher = dispatcher;
+      this.listener = listener;
+    }
+
+    @Override
+    public void unregister() {
+      this.dispatcher.unregister(candidate -> candidate == this.listener);
+    }
+
+    @Override
+    public long tested() {
+      return this.listener.tested();
+    }
+
+    @Override
+    public long passed() {
+      return this.listener.passed();
+    }
   }
 }
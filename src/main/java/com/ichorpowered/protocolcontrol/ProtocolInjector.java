@@ -41,6 +41,10 @@ public final class ProtocolInjector {
   public static final String CHANNEL_HANDLER = "protocolcontrol_listener";
   public static final String INCOMING_HANDLER = "protocolcontrol_incoming";
   public static final String OUTGOING_HANDLER = "protocolcontrol_outgoing";
+  public static final String FLUSH_HANDLER = "protocolcontrol_flush";
+  public static final String FIREWALL_HANDLER = "protocolcontrol_firewall";
+  public static final String INCOMING_COUNTER = "protocolcontrol_incoming_counter";
+  public static final String OUTGOING_COUNTER = "protocolcontrol_outgoing_counter";
   private final Game game;
   private final Logger logger;
   private final ChannelInitializer initializer;
@@ -26,6 +26,15 @@ package com.ichorpowered.protocolcontrol;
 
 import com.ichorpowered.protocolcontrol.channel.ChannelInitializer;
 import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.metrics.ListenerProfiler;
+import com.ichorpowered.protocolcontrol.metrics.ProtocolMetrics;
+import com.ichorpowered.protocolcontrol.metrics.StallDetector;
+import com.ichorpowered.protocolcontrol.packet.FlushCoalescer;
+import com.ichorpowered.protocolcontrol.packet.PacketCache;
+import com.ichorpowered.protocolcontrol.packet.PacketEncoder;
+import com.ichorpowered.protocolcontrol.packet.PacketFirewall;
+import com.ichorpowered.protocolcontrol.packet.PacketPriorities;
+import com.ichorpowered.protocolcontrol.packet.PacketRegistry;
 import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
 import com.ichorpowered.protocolcontrol.service.ProtocolService;
 import com.ichorpowered.protocolcontrol.service.SimpleProtocolService;
@@ -35,9 +44,18 @@ public final class ProtocolModule extends AbstractModule {
   @Override
   protected void configure() {
     this.bind(ChannelInitializer.class);
+    this.bind(FlushCoalescer.class);
+    this.bind(PacketCache.class);
+    this.bind(PacketEncoder.class);
+    this.bind(PacketFirewall.class);
+    this.bind(PacketPriorities.class);
+    this.bind(PacketRegistry.class);
     this.bind(PacketRemapper.class);
     this.bind(ProtocolEvent.class);
     this.bind(ProtocolInjector.class);
+    this.bind(ListenerProfiler.class);
+    this.bind(ProtocolMetrics.class);
+    this.bind(StallDetector.class);
     this.bind(ProtocolService.class).to(SimpleProtocolService.class);
     this.installFactory(ChannelProfile.Factory.class);
   }
@@ -26,6 +26,10 @@ package com.ichorpowered.protocolcontrol;
 
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import com.ichorpowered.protocolcontrol.packet.FlushCoalescer;
+import com.ichorpowered.protocolcontrol.packet.PacketCache;
+import com.ichorpowered.protocolcontrol.packet.PacketRegistry;
+import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
 import com.ichorpowered.protocolcontrol.service.ProtocolService;
 import org.slf4j.Logger;
 import org.spongepowered.api.Sponge;
@@ -36,6 +40,7 @@ import org.spongepowered.api.event.game.state.GamePostInitializationEvent;
 import org.spongepowered.api.event.game.state.GameStoppingServerEvent;
 import org.spongepowered.api.plugin.Plugin;
 import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.api.scheduler.Task;
 
 @Plugin(
   id = "protocolcontrol",
@@ -46,12 +51,18 @@ import org.spongepowered.api.plugin.PluginContainer;
   }
 )
 public final class ProtocolPlugin {
+  private static final String PREPARE_STRUCTURES = "protocolcontrol.prepareStructures";
   private final Injector injector;
   private final PluginContainer plugin;
   private final Logger logger;
   private ProtocolChannel protocolChannel;
   private ProtocolEvent protocolEvent;
   private ProtocolInjector protocolInjector;
+  private FlushCoalescer flushCoalescer;
+  private PacketCache packetCache;
+  private PacketRegistry packetRegistry;
+  private PacketRemapper packetRemapper;
+  private Task flushTask;
 
   @Inject
   public ProtocolPlugin(final Injector injector,
@@ -68,6 +79,10 @@ public final class ProtocolPlugin {
     this.protocolChannel = childInjector.getInstance(ProtocolChannel.class);
     this.protocolEvent = childInjector.getInstance(ProtocolEvent.class);
     this.protocolInjector = childInjector.getInstance(ProtocolInjector.class);
+    this.flushCoalescer = childInjector.getInstance(FlushCoalescer.class);
+    this.packetCache = childInjector.getInstance(PacketCache.class);
+    this.packetRegistry = childInjector.getInstance(PacketRegistry.class);
+    this.packetRemapper = childInjector.getInstance(PacketRemapper.class);
     this.protocolInjector.setup();
     this.protocolChannel.enable();
     this.protocolEvent.enable();
@@ -78,6 +93,15 @@ public final class ProtocolPlugin {
   @Listener(order = Order.FIRST)
   public void onGameStarting(final GamePostInitializationEvent event) {
     this.protocolInjector.enable();
+    this.flushTask = Task.builder()
+      .name("protocolcontrol-flush")
+      .intervalTicks(1)
+      .execute(this.flushCoalescer::tick)
+      .submit(this);
+    if(Boolean.getBoolean(ProtocolPlugin.PREPARE_STRUCTURES)) {
+      this.packetRemapper.prepare(this.packetRegistry.packets());
+      this.logger.info("Prepared " + this.packetRegistry.packets().size() + " packet structures");
+    }
     this.logger.info("Successfully injected " + this.plugin.getName() + " version " + this.plugin.getVersion().orElse("UNKNOWN"));
   }
 
@@ -86,6 +110,8 @@ public final class ProtocolPlugin {
     if(this.protocolInjector != null && this.protocolInjector.enabled()) this.protocolInjector.disable();
     if(this.protocolEvent != null && this.protocolEvent.enabled()) this.protocolEvent.disable();
     if(this.protocolChannel != null && this.protocolChannel.enabled()) this.protocolChannel.disable();
+    if(this.flushTask != null) this.flushTask.cancel();
+    if(this.packetCache != null) this.packetCache.invalidateAll();
     this.logger.info("Stopped " + this.plugin.getName());
   }
 }
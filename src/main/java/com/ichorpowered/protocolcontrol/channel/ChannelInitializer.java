@@ -28,7 +28,12 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.ichorpowered.protocolcontrol.ProtocolChannel;
 import com.ichorpowered.protocolcontrol.ProtocolEvent;
+import com.ichorpowered.protocolcontrol.metrics.ProtocolMetrics;
+import com.ichorpowered.protocolcontrol.metrics.StallDetector;
+import com.ichorpowered.protocolcontrol.packet.FlushCoalescer;
+import com.ichorpowered.protocolcontrol.packet.PacketFirewall;
 import com.ichorpowered.protocolcontrol.packet.PacketHandler;
+import com.ichorpowered.protocolcontrol.packet.PacketPriorities;
 import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
 import com.ichorpowered.protocolcontrol.util.Exceptions;
 import io.netty.channel.Channel;
@@ -42,6 +47,11 @@ public final class ChannelInitializer extends ChannelInboundHandlerAdapter {
   private final ProtocolChannel channels;
   private final ProtocolEvent events;
   private final PacketRemapper remapper;
+  private final FlushCoalescer coalescer;
+  private final PacketPriorities priorities;
+  private final PacketFirewall firewall;
+  private final ProtocolMetrics metrics;
+  private final StallDetector stalls;
   private final ChannelProfile.Factory profileFactory;
 
   @Inject
@@ -49,11 +59,21 @@ public final class ChannelInitializer extends ChannelInboundHandlerAdapter {
                             final ProtocolChannel channels,
                             final ProtocolEvent events,
                             final PacketRemapper remapper,
+                            final FlushCoalescer coalescer,
+                            final PacketPriorities priorities,
+                            final PacketFirewall firewall,
+                            final ProtocolMetrics metrics,
+                            final StallDetector stalls,
                             final ChannelProfile.Factory profileFactory) {
     this.logger = logger;
     this.channels = channels;
     this.events = events;
     this.remapper = remapper;
+    this.coalescer = coalescer;
+    this.priorities = priorities;
+    this.firewall = firewall;
+    this.metrics = metrics;
+    this.stalls = stalls;
     this.profileFactory = profileFactory;
   }
 
@@ -63,7 +83,8 @@ public final class ChannelInitializer extends ChannelInboundHandlerAdapter {
       () -> {
         final Channel channel = (Channel) message;
         final ChannelProfile profile = this.profileFactory.create(channel);
-        final PacketHandler handler = new PacketHandler(this.logger, this.channels, this.events, this.remapper, profile);
+        final PacketHandler handler = new PacketHandler(this.logger, this.channels, this.events, this.remapper, this.coalescer,
+          this.priorities, this.firewall, this.metrics, this.stalls, profile);
         channel.pipeline().addLast(handler);
       },
       this.logger,
@@ -27,18 +27,36 @@ package com.ichorpowered.protocolcontrol.channel;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.ichorpowered.protocolcontrol.ProtocolInjector;
+import com.ichorpowered.protocolcontrol.event.PacketDispatcher;
+import com.ichorpowered.protocolcontrol.packet.EncodedPacket;
+import com.ichorpowered.protocolcontrol.packet.OutgoingQueue;
 import com.ichorpowered.protocolcontrol.packet.PacketDirection;
+import com.ichorpowered.protocolcontrol.packet.PacketEncoder;
+import com.ichorpowered.protocolcontrol.packet.PacketRegistry;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import net.minecraft.network.EnumConnectionState;
 import net.minecraft.network.Packet;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import static java.util.Objects.requireNonNull;
+
 public final class ChannelProfile {
   private final Channel channel;
   private @Nullable UUID player;
   private boolean active = false;
+  private volatile @Nullable ChannelHandlerContext incoming;
+  private volatile @Nullable ChannelHandlerContext outgoing;
+  private volatile @Nullable ChannelHandlerContext encoder;
+  private volatile @Nullable OutgoingQueue queue;
+  private volatile @Nullable PacketDispatcher dispatcher;
 
   @Inject
   public ChannelProfile(final @Assisted Channel channel) {
@@ -92,6 +110,96 @@ public final class ChannelProfile {
     this.active = active;
   }
 
+  /**
+   * Returns the {@link PacketDispatcher} of the listeners scoped
+   * to this profile, or {@code null} if none were registered.
+   *
+   * @return the profile packet dispatcher
+   */
+  public @Nullable PacketDispatcher dispatcher() {
+    return this.dispatcher;
+  }
+
+  /**
+   * Returns the {@link PacketDispatcher} of the listeners scoped
+   * to this profile, creating it with the specified
+   * {@link PacketRegistry} if none were registered.
+   *
+   * @param registry the packet registry
+   * @return the profile packet dispatcher
+   */
+  public synchronized @NonNull PacketDispatcher dispatcher(final @NonNull PacketRegistry registry) {
+    PacketDispatcher dispatcher = this.dispatcher;
+    if(dispatcher == null) this.dispatcher = dispatcher = new PacketDispatcher(registry);
+    return dispatcher;
+  }
+
+  /**
+   * Sets the incoming and outgoing {@link ChannelHandlerContext}s
+   * packets are sent from, so they are not looked up in the pipeline
+   * on each send. A context is looked up again once it has been
+   * removed from the pipeline.
+   *
+   * @param incoming the incoming handler context
+   * @param outgoing the outgoing handler context
+   */
+  public void contexts(final @Nullable ChannelHandlerContext incoming, final @Nullable ChannelHandlerContext outgoing) {
+    this.incoming = incoming;
+    this.outgoing = outgoing;
+  }
+
+  /**
+   * Returns the {@link OutgoingQueue} holding outgoing packets
+   * while this channel is not writable, if it has been injected.
+   *
+   * @return the outgoing queue, if present
+   */
+  public @Nullable OutgoingQueue queue() {
+    return this.queue;
+  }
+
+  /**
+   * Sets the {@link OutgoingQueue} outgoing packets are sent
+   * through.
+   *
+   * @param queue the outgoing queue
+   */
+  public void queue(final @Nullable OutgoingQueue queue) {
+    this.queue = queue;
+  }
+
+  /**
+   * Returns the number of outgoing packets queued while this
+   * channel is not writable.
+   *
+   * @return the queue depth
+   */
+  public int queueDepth() {
+    final OutgoingQueue queue = this.queue;
+    return queue != null ? queue.depth() : 0;
+  }
+
+  /**
+   * Returns the {@link ChannelHandlerContext} encoded packets are
+   * written from, which is the compressor if the channel compresses
+   * packets, otherwise the encoder.
+   *
+   * The context is only looked up in the pipeline again once it has
+   * been removed, or while the encoder is used outside of the play
+   * state, as compression is only enabled during the login.
+   *
+   * @return the encoded packet context, if present
+   */
+  public @Nullable ChannelHandlerContext encoder() {
+    ChannelHandlerContext context = this.encoder;
+    if(context == null || context.isRemoved()
+      || (!PacketEncoder.COMPRESSOR.equals(context.name()) && PacketEncoder.state(this.channel) != EnumConnectionState.PLAY)) {
+      context = PacketEncoder.context(this.channel);
+      this.encoder = context;
+    }
+    return context;
+  }
+
   /**
    * Sends the specified {@code T} packet in the specified
    * {@link PacketDirection} on the channel event loop.
@@ -117,22 +225,190 @@ public final class ChannelProfile {
   public <T extends Packet<?>> void send(final @NonNull PacketDirection direction, final @NonNull T packet,
                                          final boolean currentThread) {
     if(direction == PacketDirection.INCOMING) {
-      final ChannelHandlerContext context = this.channel.pipeline().context(ProtocolInjector.INCOMING_HANDLER);
       if(currentThread) {
-        this.read(context, packet);
+        this.read(this.incoming(), packet);
       } else {
-        this.channel.eventLoop().execute(() -> this.read(context, packet));
+        this.channel.eventLoop().execute(() -> this.read(this.incoming(), packet));
       }
     } else {
-      final ChannelHandlerContext context = this.channel.pipeline().context(ProtocolInjector.OUTGOING_HANDLER);
       if(currentThread) {
-        context.write(packet, this.channel.voidPromise());
+        this.write(this.outgoing(), packet);
+      } else {
+        this.channel.eventLoop().execute(() -> this.write(this.outgoing(), packet));
+      }
+    }
+  }
+
+  /**
+   * Sends the specified {@code T} packet in the specified
+   * {@link PacketDirection} on the current thread if it is the
+   * channel event loop, otherwise posts it to the event loop.
+   *
+   * @param direction the packet direction
+   * @param packet the packet
+   * @param <T> the packet type
+   */
+  public <T extends Packet<?>> void sendDirect(final @NonNull PacketDirection direction, final @NonNull T packet) {
+    this.send(direction, packet, this.channel.eventLoop().inEventLoop());
+  }
+
+  /**
+   * Sends and flushes the specified {@link EncodedPacket} to the
+   * client on the channel event loop, skipping the channel encoder
+   * and compressor. The packet is queued behind the packets written
+   * before it, while the channel is suspended or not writable.
+   *
+   * @param packet the encoded packet
+   */
+  public void send(final @NonNull EncodedPacket packet) {
+    this.send(packet, false);
+  }
+
+  /**
+   * Sends and flushes the specified {@link EncodedPacket} to the
+   * client on the specified thread, skipping the channel encoder
+   * and compressor. The packet is queued behind the packets written
+   * before it, while the channel is suspended or not writable.
+   *
+   * @param packet the encoded packet
+   * @param currentThread whether to send on the current thread or
+   *                      post to the event loop
+   */
+  public void send(final @NonNull EncodedPacket packet, final boolean currentThread) {
+    requireNonNull(packet, "packet");
+    if(PacketEncoder.state(this.channel) != packet.state()) {
+      throw new IllegalArgumentException("Packet was encoded for another connection state");
+    }
+    if(currentThread) {
+      this.write(packet);
+      return;
+    }
+    packet.retain();
+    try {
+      this.channel.eventLoop().execute(() -> {
+        try {
+          this.write(packet);
+        } finally {
+          packet.release();
+        }
+      });
+    } catch(RejectedExecutionException exception) {
+      packet.release();
+      throw exception;
+    }
+  }
+
+  /**
+   * Sends the specified packets in the specified {@link PacketDirection}
+   * on the channel event loop, in a single task and with a single flush.
+   *
+   * @param direction the packet direction
+   * @param packets the packets
+   */
+  public void sendAll(final @NonNull PacketDirection direction, final @NonNull Collection<? extends Packet<?>> packets) {
+    this.sendAll(direction, packets, false);
+  }
+
+  /**
+   * Sends the specified packets in the specified {@link PacketDirection}
+   * on the specified thread, with a single flush.
+   *
+   * @param direction the packet direction
+   * @param packets the packets
+   * @param currentThread whether to send on the current thread or
+   *                      post to the event loop
+   */
+  public void sendAll(final @NonNull PacketDirection direction, final @NonNull Collection<? extends Packet<?>> packets,
+                      final boolean currentThread) {
+    requireNonNull(direction, "direction");
+    if(requireNonNull(packets, "packets").isEmpty()) return;
+    final Packet<?>[] messages = packets.toArray(new Packet<?>[0]);
+    final PacketDirection[] directions = new PacketDirection[messages.length];
+    Arrays.fill(directions, direction);
+    this.sendAll(directions, messages, currentThread);
+  }
+
+  /**
+   * Returns a new {@link Batch} of packets to send on this
+   * channel.
+   *
+   * @return a new batch
+   */
+  public @NonNull Batch batch() {
+    return new Batch(this);
+  }
+
+  private void sendAll(final @NonNull PacketDirection @NonNull [] directions, final @NonNull Packet<?> @NonNull [] packets,
+                       final boolean currentThread) {
+    if(currentThread) {
+      this.sendAll(directions, packets);
+    } else {
+      this.channel.eventLoop().execute(() -> this.sendAll(directions, packets));
+    }
+  }
+
+  private void sendAll(final @NonNull PacketDirection @NonNull [] directions, final @NonNull Packet<?> @NonNull [] packets) {
+    final ChannelHandlerContext incoming = this.incoming();
+    final ChannelHandlerContext outgoing = this.outgoing();
+    boolean flush = false;
+    for(int i = 0; i < packets.length; i++) {
+      if(directions[i] == PacketDirection.INCOMING) {
+        this.read(incoming, packets[i]);
+      } else {
+        this.write(outgoing, packets[i]);
+        flush = true;
+      }
+    }
+    if(flush) {
+      if(outgoing != null) {
+        outgoing.flush();
       } else {
-        this.channel.eventLoop().execute(() -> context.write(packet, this.channel.voidPromise()));
+        this.channel.flush();
       }
     }
   }
 
+  private @Nullable ChannelHandlerContext incoming() {
+    ChannelHandlerContext context = this.incoming;
+    if(context == null || context.isRemoved()) {
+      context = this.channel.pipeline().context(ProtocolInjector.INCOMING_HANDLER);
+      this.incoming = context;
+    }
+    return context;
+  }
+
+  private @Nullable ChannelHandlerContext outgoing() {
+    ChannelHandlerContext context = this.outgoing;
+    if(context == null || context.isRemoved()) {
+      context = this.channel.pipeline().context(ProtocolInjector.OUTGOING_HANDLER);
+      this.outgoing = context;
+    }
+    return context;
+  }
+
+  private void write(final @NonNull EncodedPacket packet) {
+    if(this.queue != null && this.outgoing() != null) {
+      // Written from the end of the pipeline, so it is ordered with the packets before it.
+      this.channel.write(packet.retain(), this.channel.voidPromise());
+      return;
+    }
+    final ChannelHandlerContext context = this.encoder();
+    if(context == null) return;
+    final boolean compress = PacketEncoder.COMPRESSOR.equals(context.name());
+    context.writeAndFlush(packet.retainedBuffer(compress), this.channel.voidPromise());
+  }
+
+  private void write(final @Nullable ChannelHandlerContext context, final @NonNull Object message) {
+    final OutgoingQueue queue = this.queue;
+    if(context != null && queue != null) {
+      queue.write(message, this.channel.voidPromise());
+    } else if(context != null) {
+      context.write(message, this.channel.voidPromise());
+    } else {
+      this.channel.write(message, this.channel.voidPromise());
+    }
+  }
+
   private void read(final @Nullable ChannelHandlerContext context, final @NonNull Object message) {
     if(context != null) {
       context.fireChannelRead(message);
@@ -144,4 +420,81 @@ public final class ChannelProfile {
   public interface Factory {
     ChannelProfile create(@Assisted Channel channel);
   }
+
+  /**
+   * A batch of packets to send on a {@link ChannelProfile} in a
+   * single task, with a single flush of the outgoing packets.
+   *
+   * The packets are sent in the order they were added.
+   */
+  public static final class Batch {
+    private final ChannelProfile profile;
+    private final List<PacketDirection> directions = new ArrayList<>();
+    private final List<Packet<?>> packets = new ArrayList<>();
+
+    /* package */ Batch(final @NonNull ChannelProfile profile) {
+      this.profile = profile;
+    }
+
+    /**
+     * Adds the specified {@code T} packet to this batch in
+     * the specified {@link PacketDirection}.
+     *
+     * @param direction the packet direction
+     * @param packet the packet
+     * @param <T> the packet type
+     * @return this batch
+     */
+    public <T extends Packet<?>> @NonNull Batch add(final @NonNull PacketDirection direction, final @NonNull T packet) {
+      this.directions.add(requireNonNull(direction, "direction"));
+      this.packets.add(requireNonNull(packet, "packet"));
+      return this;
+    }
+
+    /**
+     * Adds the specified packets to this batch in the specified
+     * {@link PacketDirection}.
+     *
+     * @param direction the packet direction
+     * @param packets the packets
+     * @return this batch
+     */
+    public @NonNull Batch addAll(final @NonNull PacketDirection direction, final @NonNull Collection<? extends Packet<?>> packets) {
+      for(final Packet<?> packet : requireNonNull(packets, "packets")) {
+        this.add(direction, packet);
+      }
+      return this;
+    }
+
+    /**
+     * Returns the number of packets in this batch.
+     *
+     * @return the number of packets
+     */
+    public int size() {
+      return this.packets.size();
+    }
+
+    /**
+     * Sends the packets in this batch on the channel event loop.
+     */
+    public void send() {
+      this.send(false);
+    }
+
+    /**
+     * Sends the packets in this batch on the specified thread.
+     *
+     * @param currentThread whether to send on the current thread or
+     *                      post to the event loop
+     */
+    public void send(final boolean currentThread) {
+      if(this.packets.isEmpty()) return;
+      this.profile.sendAll(
+        this.directions.toArray(new PacketDirection[0]),
+        this.packets.toArray(new Packet<?>[0]),
+        currentThread
+      );
+    }
+  }
 }
@@ -0,0 +1,395 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.event;
+
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.packet.PacketDirection;
+import com.ichorpowered.protocolcontrol.packet.PacketRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import net.minecraft.network.Packet;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A dispatcher routing {@link PacketEvent}s to {@link Listener}s
+ * through tables indexed by the {@link PacketRegistry#index(Class)}
+ * of the packet class.
+ *
+ * The tables are immutable and rebuilt whenever a listener is
+ * registered or unregistered, so that finding the listeners for
+ * a packet never locks or allocates.
+ */
+public final class PacketDispatcher {
+  private static final Listener[] NONE = new Listener[0];
+  private static final Comparator<Listener> ORDER = Comparator.comparingInt(Listener::order);
+  private final PacketRegistry registry;
+  private final List<Listener> listeners = new ArrayList<>();
+  private volatile Table table = Table.EMPTY;
+
+  public PacketDispatcher(final @NonNull PacketRegistry registry) {
+    this.registry = requireNonNull(registry, "registry");
+  }
+
+  /**
+   * Returns {@code true} if there are any {@link Listener}s.
+   *
+   * @return whether there are any listeners
+   */
+  public boolean any() {
+    return this.table.count > 0;
+  }
+
+  /**
+   * Returns {@code true} if there are any {@link Listener}s with
+   * the specified {@link DispatchMode}.
+   *
+   * @param mode the dispatch mode
+   * @return whether there are any listeners for the mode
+   */
+  public boolean any(final @NonNull DispatchMode mode) {
+    return this.table.modes[requireNonNull(mode, "mode").ordinal()];
+  }
+
+  /**
+   * Returns the {@link Listener}s for the specified packet class in
+   * the specified {@link PacketDirection} with the specified
+   * {@link DispatchMode}, in the order they are invoked.
+   *
+   * The returned array must not be modified.
+   *
+   * @param packet the packet class
+   * @param direction the packet direction
+   * @param mode the dispatch mode
+   * @return the listeners
+   */
+  public @NonNull Listener @NonNull [] listeners(final @NonNull Class<?> packet, final @NonNull PacketDirection direction,
+                                                 final @NonNull DispatchMode mode) {
+    final Table table = this.table;
+    if(table.count == 0) return PacketDispatcher.NONE;
+    final int index = this.registry.index(packet);
+    final Listener[][] rows = table.rows[mode.ordinal()][direction.ordinal()];
+    return index < rows.length ? rows[index] : table.fallback[mode.ordinal()][direction.ordinal()];
+  }
+
+  /**
+   * Registers the specified {@link Listener}.
+   *
+   * @param listener the listener
+   */
+  public void register(final @NonNull Listener listener) {
+    requireNonNull(listener, "listener");
+    synchronized(this.listeners) {
+      this.listeners.add(listener);
+      this.rebuild();
+    }
+  }
+
+  /**
+   * Registers the specified {@link Listener}s.
+   *
+   * @param listeners the listeners
+   */
+  public void registerAll(final @NonNull Iterable<Listener> listeners) {
+    requireNonNull(listeners, "listeners");
+    synchronized(this.listeners) {
+      for(final Listener listener : listeners) {
+        this.listeners.add(requireNonNull(listener, "listener"));
+      }
+      this.rebuild();
+    }
+  }
+
+  /**
+   * Unregisters the {@link Listener}s matching the specified
+   * predicate.
+   *
+   * @param predicate the listener predicate
+   */
+  public void unregister(final @NonNull Predicate<Listener> predicate) {
+    requireNonNull(predicate, "predicate");
+    synchronized(this.listeners) {
+      if(this.listeners.removeIf(predicate)) this.rebuild();
+    }
+  }
+
+  /**
+   * Unregisters every {@link Listener}.
+   */
+  public void unregisterAll() {
+    synchronized(this.listeners) {
+      this.listeners.clear();
+      this.table = Table.EMPTY;
+    }
+  }
+
+  private void rebuild() {
+    final List<Listener> listeners = new ArrayList<>(this.listeners);
+    listeners.sort(PacketDispatcher.ORDER);
+    for(final Listener listener : listeners) {
+      if(listener.packet != null) this.registry.index(listener.packet);
+    }
+    this.table = new Table(listeners, this.registry);
+  }
+
+  /**
+   * A listener of the {@link PacketEvent}s for a packet class, or
+   * every packet class, in a {@link PacketDirection}, or both
+   * directions.
+   */
+  public static final class Listener {
+    private final Object owner;
+    private final @Nullable Class<?> packet;
+    private final @Nullable PacketDirection direction;
+    private final DispatchMode mode;
+    private final int order;
+    private final @Nullable Filter filter;
+    private final Invoker invoker;
+    private final LongAdder tested = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+
+    public Listener(final @NonNull Object owner,
+                    final @Nullable Class<?> packet,
+                    final @Nullable PacketDirection direction,
+                    final @NonNull DispatchMode mode,
+                    final int order,
+                    final @NonNull Invoker invoker) {
+      this(owner, packet, direction, mode, order, null, invoker);
+    }
+
+    public Listener(final @NonNull Object owner,
+                    final @Nullable Class<?> packet,
+                    final @Nullable PacketDirection direction,
+                    final @NonNull DispatchMode mode,
+                    final int order,
+                    final @Nullable Filter filter,
+                    final @NonNull Invoker invoker) {
+      this.owner = requireNonNull(owner, "owner");
+      this.packet = packet;
+      this.direction = direction;
+      this.mode = requireNonNull(mode, "mode");
+      this.order = order;
+      this.filter = filter;
+      this.invoker = requireNonNull(invoker, "invoker");
+    }
+
+    /**
+     * Returns the object the listener was registered for.
+     *
+     * @return the listener owner
+     */
+    public @NonNull Object owner() {
+      return this.owner;
+    }
+
+    /**
+     * Returns the packet class listened to, or {@code null} if
+     * every packet class is listened to.
+     *
+     * @return the packet class
+     */
+    public @Nullable Class<?> packet() {
+      return this.packet;
+    }
+
+    /**
+     * Returns the {@link PacketDirection} listened to, or
+     * {@code null} if both directions are listened to.
+     *
+     * @return the packet direction
+     */
+    public @Nullable PacketDirection direction() {
+      return this.direction;
+    }
+
+    /**
+     * Returns the {@link DispatchMode} of the listener.
+     *
+     * @return the dispatch mode
+     */
+    public @NonNull DispatchMode mode() {
+      return this.mode;
+    }
+
+    /**
+     * Returns the order of the listener, where listeners with a
+     * lower order are invoked first.
+     *
+     * @return the listener order
+     */
+    public int order() {
+      return this.order;
+    }
+
+    /**
+     * Returns {@code true} if the listener has a {@link Filter}.
+     *
+     * @return whether the listener is filtered
+     */
+    public boolean filtered() {
+      return this.filter != null;
+    }
+
+    /**
+     * Returns {@code true} if the {@link Filter} of the listener
+     * accepts the specified packet, or the listener has none.
+     *
+     * The result is not recorded.
+     *
+     * @param profile the channel profile
+     * @param packet the packet object
+     * @return whether the packet is accepted
+     * @throws Throwable exceptions thrown by the filter
+     */
+    public boolean test(final @NonNull ChannelProfile profile, final @NonNull Packet<?> packet) throws Throwable {
+      return this.filter == null || this.filter.test(profile, packet);
+    }
+
+    /**
+     * Records whether the {@link Filter} of the listener accepted
+     * a packet.
+     *
+     * @param passed whether the packet was accepted
+     */
+    public void record(final boolean passed) {
+      this.tested.increment();
+      if(passed) this.passed.increment();
+    }
+
+    /**
+     * Returns the number of packets the {@link Filter} of the
+     * listener was recorded testing.
+     *
+     * @return the number of tested packets
+     */
+    public long tested() {
+      return this.tested.sum();
+    }
+
+    /**
+     * Returns the number of packets the {@link Filter} of the
+     * listener was recorded accepting.
+     *
+     * @return the number of accepted packets
+     */
+    public long passed() {
+      return this.passed.sum();
+    }
+
+    /**
+     * Invokes the listener with the specified {@link PacketEvent}.
+     *
+     * @param event the packet event
+     * @throws Throwable exceptions thrown by the listener
+     */
+    public void invoke(final @NonNull PacketEvent<?> event) throws Throwable {
+      this.invoker.invoke(event);
+    }
+
+    /* package */ boolean matches(final @NonNull DispatchMode mode, final @NonNull PacketDirection direction) {
+      return this.mode == mode && (this.direction == null || this.direction == direction);
+    }
+  }
+
+  /**
+   * Decides whether a {@link Listener} is invoked for a packet,
+   * before a {@link PacketEvent} is created.
+   */
+  @FunctionalInterface
+  public interface Filter {
+    /**
+     * Returns {@code true} if the listener should be invoked for
+     * the specified packet.
+     *
+     * @param profile the channel profile
+     * @param packet the packet object
+     * @return whether the packet is accepted
+     * @throws Throwable exceptions testing the packet
+     */
+    boolean test(@NonNull ChannelProfile profile, @NonNull Packet<?> packet) throws Throwable;
+  }
+
+  /**
+   * Invokes a {@link Listener}.
+   */
+  @FunctionalInterface
+  public interface Invoker {
+    /**
+     * Handles the specified {@link PacketEvent}.
+     *
+     * @param event the packet event
+     * @throws Throwable exceptions thrown by the listener
+     */
+    void invoke(@NonNull PacketEvent<?> event) throws Throwable;
+  }
+
+  /**
+   * An immutable table of the listeners of each packet index for
+   * each dispatch mode and direction, with a fallback for packet
+   * indexes assigned after it was built.
+   */
+  private static final class Table {
+    private static final Table EMPTY = new Table(new ArrayList<>(), null);
+
+    private final Listener[][][][] rows = new Listener[DispatchMode.values().length][PacketDirection.values().length][][];
+    private final Listener[][][] fallback = new Listener[DispatchMode.values().length][PacketDirection.values().length][];
+    private final boolean[] modes = new boolean[DispatchMode.values().length];
+    private final int count;
+
+    /* package */ Table(final @NonNull List<Listener> listeners, final @Nullable PacketRegistry registry) {
+      final int indexes = registry != null ? registry.indexes() : 0;
+      for(final DispatchMode mode : DispatchMode.values()) {
+        for(final PacketDirection direction : PacketDirection.values()) {
+          final List<Listener> every = new ArrayList<>();
+          final List<List<Listener>> packets = new ArrayList<>(indexes);
+          for(int i = 0; i < indexes; i++) packets.add(new ArrayList<>());
+          for(final Listener listener : listeners) {
+            if(!listener.matches(mode, direction)) continue;
+            this.modes[mode.ordinal()] = true;
+            if(listener.packet == null) {
+              every.add(listener);
+              for(final List<Listener> packet : packets) packet.add(listener);
+            } else if(registry != null) {
+              packets.get(registry.index(listener.packet)).add(listener);
+            }
+          }
+          final Listener[][] rows = new Listener[indexes][];
+          for(int i = 0; i < indexes; i++) {
+            final List<Listener> packet = packets.get(i);
+            rows[i] = packet.isEmpty() ? PacketDispatcher.NONE : packet.toArray(new Listener[0]);
+          }
+          this.rows[mode.ordinal()][direction.ordinal()] = rows;
+          this.fallback[mode.ordinal()][direction.ordinal()] = every.isEmpty() ? PacketDispatcher.NONE : every.toArray(new Listener[0]);
+        }
+      }
+      this.count = listeners.size();
+    }
+  }
+}
@@ -26,10 +26,13 @@ package com.ichorpowered.protocolcontrol.event;
 
 import com.google.common.reflect.TypeToken;
 import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.packet.CopyMode;
 import com.ichorpowered.protocolcontrol.packet.PacketDirection;
+import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
 import net.kyori.event.ReifiedEvent;
 import net.minecraft.network.Packet;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import static java.util.Objects.requireNonNull;
 
@@ -42,15 +45,49 @@ import static java.util.Objects.requireNonNull;
 public final class PacketEvent<T extends Packet<?>> implements ReifiedEvent<T> {
   private final ChannelProfile profile;
   private final PacketDirection direction;
+  private final @Nullable PacketRemapper remapper;
+  private final PacketDispatcher.@NonNull Listener @Nullable [] @NonNull [] listeners;
   private T packet;
+  private boolean owned = false;
   private boolean cancel = false;
 
   public PacketEvent(final @NonNull ChannelProfile profile,
                      final @NonNull PacketDirection direction,
                      final @NonNull T packet) {
+    this(profile, direction, packet, null);
+  }
+
+  public PacketEvent(final @NonNull ChannelProfile profile,
+                     final @NonNull PacketDirection direction,
+                     final @NonNull T packet,
+                     final @Nullable PacketRemapper remapper) {
+    this(profile, direction, packet, remapper, null);
+  }
+
+  /**
+   * Creates an event that only invokes the specified listeners of
+   * each {@link DispatchMode}, indexed by its ordinal, as they were
+   * selected by testing their {@link PacketFilter}s ahead of time.
+   *
+   * @param profile the channel profile
+   * @param direction the packet direction
+   * @param packet the packet object
+   * @param remapper the packet remapper
+   * @param listeners the selected listeners of each dispatch mode
+   */
+  public PacketEvent(final @NonNull ChannelProfile profile,
+                     final @NonNull PacketDirection direction,
+                     final @NonNull T packet,
+                     final @Nullable PacketRemapper remapper,
+                     final PacketDispatcher.@NonNull Listener @Nullable [] @NonNull [] listeners) {
     this.profile = requireNonNull(profile, "profile");
     this.direction = requireNonNull(direction, "direction");
     this.packet = requireNonNull(packet, "packet");
+    this.remapper = remapper;
+    if(listeners != null && listeners.length != DispatchMode.values().length) {
+      throw new IllegalArgumentException("Listeners must be selected for each dispatch mode");
+    }
+    this.listeners = listeners;
   }
 
   /**
@@ -87,6 +124,65 @@ public final class PacketEvent<T extends Packet<?>> implements ReifiedEvent<T> {
    */
   public void packet(final @NonNull T packet) {
     this.packet = requireNonNull(packet, "packet");
+    this.owned = true;
+  }
+
+  /**
+   * Returns a deep copy of the {@code T} packet that can be
+   * changed without affecting the packet shared with other
+   * channels, replacing the packet of this event.
+   *
+   * The packet is only copied by the first call, or not at all
+   * if the packet has already been replaced.
+   *
+   * @return the mutable packet object
+   * @throws Throwable exceptions attempting to copy the packet
+   */
+  public @NonNull T mutablePacket() throws Throwable {
+    return this.mutablePacket(CopyMode.DEEP);
+  }
+
+  /**
+   * Returns a copy of the {@code T} packet using the specified
+   * {@link CopyMode}, replacing the packet of this event.
+   *
+   * The packet is only copied by the first call, or not at all
+   * if the packet has already been replaced.
+   *
+   * An incoming packet is only owned by this event, so once it
+   * is deep copied the buffers of the replaced packet are
+   * released, and the copy takes over their ownership. Outgoing
+   * packets may be shared with other channels, so their buffers
+   * are left to their owner.
+   *
+   * @param mode the copy mode
+   * @return the mutable packet object
+   * @throws Throwable exceptions attempting to copy the packet
+   */
+  public @NonNull T mutablePacket(final @NonNull CopyMode mode) throws Throwable {
+    requireNonNull(mode, "mode");
+    if(!this.owned) {
+      if(this.remapper == null) throw new IllegalStateException("Unable to copy packet without a remapper");
+      final T packet = this.packet;
+      this.packet = this.remapper.copy(packet, mode);
+      this.owned = true;
+      if(mode == CopyMode.DEEP && this.direction == PacketDirection.INCOMING) this.remapper.release(packet);
+    }
+    return this.packet;
+  }
+
+  /**
+   * Returns the listeners selected for this event with the specified
+   * {@link DispatchMode}, or {@code null} if they are found when the
+   * event is fired.
+   *
+   * The returned array must not be modified.
+   *
+   * @param mode the dispatch mode
+   * @return the selected listeners, if present
+   */
+  public PacketDispatcher.@NonNull Listener @Nullable [] listeners(final @NonNull DispatchMode mode) {
+    return this.listeners != null ? this.listeners[requireNonNull(mode, "mode").ordinal()] : null;
   }
 
   /**
@@ -0,0 +1,58 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.event;
+
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
+import net.minecraft.network.Packet;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A filter deciding whether a {@link PacketListener} is invoked for
+ * a packet, tested once on the channel event loop against the packet
+ * as it was received or written, before a {@link PacketEvent} is
+ * created.
+ *
+ * The packet is given as a reused {@link PacketRemapper.Wrapped}
+ * view, so that its fields can be read through resolved
+ * {@link PacketRemapper.Slot}s without allocating. Filters should
+ * be cheap and must not change the packet, as the listeners of
+ * other filters see the same packet.
+ *
+ * @param <T> the packet type
+ */
+@FunctionalInterface
+public interface PacketFilter<T extends Packet<?>> {
+  /**
+   * Returns {@code true} if the listener should be invoked for
+   * the packet.
+   *
+   * @param profile the channel profile
+   * @param packet the packet view
+   * @return whether the packet is accepted
+   * @throws Throwable exceptions reading the packet
+   */
+  boolean test(@NonNull ChannelProfile profile, PacketRemapper.@NonNull Wrapped<T> packet) throws Throwable;
+}
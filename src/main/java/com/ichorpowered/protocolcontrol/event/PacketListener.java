@@ -0,0 +1,53 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.event;
+
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import net.minecraft.network.Packet;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A listener of a single packet class, registered with
+ * {@code ProtocolEvent#on} and invoked directly without
+ * reflection.
+ *
+ * @param <T> the packet type
+ */
+@FunctionalInterface
+public interface PacketListener<T extends Packet<?>> {
+  /**
+   * Handles the {@code T} packet sent to or from the specified
+   * {@link ChannelProfile}.
+   *
+   * The {@link PacketEvent} can be used to cancel or replace
+   * the packet.
+   *
+   * @param profile the channel profile
+   * @param packet the packet object
+   * @param event the packet event
+   * @throws Exception exceptions handling the packet
+   */
+  void handle(@NonNull ChannelProfile profile, @NonNull T packet, @NonNull PacketEvent<T> event) throws Exception;
+}
@@ -0,0 +1,156 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A lock-free latency histogram with a bucket for each power
+ * of two nanoseconds, which does not allocate when recording.
+ */
+public final class LatencyHistogram {
+  private static final int BUCKETS = 64;
+  private final LongAdder[] buckets = new LongAdder[LatencyHistogram.BUCKETS];
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  public LatencyHistogram() {
+    for(int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+      this.buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Records the specified number of nanoseconds.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(final long nanos) {
+    final long value = Math.max(0L, nanos);
+    this.buckets[LatencyHistogram.BUCKETS - Long.numberOfLeadingZeros(value)].increment();
+    this.total.add(value);
+    this.max.accumulate(value);
+  }
+
+  /**
+   * Clears the recorded latencies.
+   */
+  public void reset() {
+    for(final LongAdder bucket : this.buckets) {
+      bucket.reset();
+    }
+    this.total.reset();
+    this.max.reset();
+  }
+
+  /**
+   * Returns a {@link Snapshot} of the recorded latencies.
+   *
+   * @return the histogram snapshot
+   */
+  public @NonNull Snapshot snapshot() {
+    final long[] counts = new long[LatencyHistogram.BUCKETS];
+    long count = 0;
+    for(int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+      counts[i] = this.buckets[i].sum();
+      count += counts[i];
+    }
+    return new Snapshot(counts, count, this.total.sum(), this.max.get());
+  }
+
+  /**
+   * An immutable snapshot of a {@link LatencyHistogram}.
+   */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    private final long max;
+
+    /* package */ Snapshot(final long @NonNull [] counts, final long count, final long total, final long max) {
+      this.counts = counts;
+      this.count = count;
+      this.total = total;
+      this.max = max;
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return the number of latencies
+     */
+    public long count() {
+      return this.count;
+    }
+
+    /**
+     * Returns the sum of the recorded latencies in nanoseconds.
+     *
+     * @return the total latency
+     */
+    public long total() {
+      return this.total;
+    }
+
+    /**
+     * Returns the highest recorded latency in nanoseconds.
+     *
+     * @return the maximum latency
+     */
+    public long max() {
+      return this.max;
+    }
+
+    /**
+     * Returns the mean of the recorded latencies in nanoseconds.
+     *
+     * @return the mean latency
+     */
+    public double mean() {
+      return this.count == 0 ? 0.0D : (double) this.total / this.count;
+    }
+
+    /**
+     * Returns the upper bound in nanoseconds of the bucket holding
+     * the specified percentile of the recorded latencies.
+     *
+     * @param percentile the percentile, between 0 and 1
+     * @return the percentile latency
+     */
+    public long percentile(final double percentile) {
+      if(percentile < 0.0D || percentile > 1.0D) throw new IllegalArgumentException("Percentile must be between 0 and 1");
+      if(this.count == 0) return 0L;
+      final long rank = Math.max(1L, (long) Math.ceil(percentile * this.count));
+      long seen = 0;
+      for(int i = 0; i < this.counts.length; i++) {
+        seen += this.counts[i];
+        if(seen >= rank) return Math.min(this.max, (1L << i) - 1);
+      }
+      return this.max;
+    }
+  }
+}
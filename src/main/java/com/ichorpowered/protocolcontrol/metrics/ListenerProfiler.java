@@ -0,0 +1,317 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.metrics;
+
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.ichorpowered.protocolcontrol.event.PacketDispatcher;
+import com.ichorpowered.protocolcontrol.event.PacketEvent;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.kyori.event.method.EventExecutor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A profiler timing each packet listener method for each packet
+ * class it handles, and warning about listeners that take longer
+ * than the slow listener threshold.
+ *
+ * Functional listeners are profiled by the class of the listener
+ * object, so every listener created by the same lambda shares its
+ * timings, the same way every instance of a listener method does.
+ *
+ * Warnings for the same listener are logged at most once every
+ * {@link #WARNING_INTERVAL} milliseconds.
+ */
+@Singleton
+public final class ListenerProfiler {
+  public static final String PROFILE_LISTENERS = "protocolcontrol.profileListeners";
+  public static final String SLOW_LISTENER = "protocolcontrol.slowListenerMillis";
+  public static final long WARNING_INTERVAL = 10000L;
+  private final Logger logger;
+  private final ConcurrentMap<Object, Listener> listeners = Maps.newConcurrentMap();
+  private volatile boolean enabled = Boolean.getBoolean(ListenerProfiler.PROFILE_LISTENERS);
+  private volatile long threshold = TimeUnit.MILLISECONDS.toNanos(Long.getLong(ListenerProfiler.SLOW_LISTENER, 5L));
+
+  @Inject
+  public ListenerProfiler(final Logger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Returns {@code true} if listeners are being timed.
+   *
+   * @return whether listeners are timed
+   */
+  public boolean enabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Sets whether listeners are timed.
+   *
+   * @param enabled whether listeners are timed
+   */
+  public void enabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the time in nanoseconds a listener may take to
+   * handle a packet before a warning is logged.
+   *
+   * @return the slow listener threshold
+   */
+  public long threshold() {
+    return this.threshold;
+  }
+
+  /**
+   * Sets the time a listener may take to handle a packet before
+   * a warning is logged, or a negative time to never warn.
+   *
+   * @param time the slow listener threshold
+   * @param unit the time unit
+   */
+  public void threshold(final long time, final @NonNull TimeUnit unit) {
+    this.threshold = time < 0 ? -1L : requireNonNull(unit, "unit").toNanos(time);
+  }
+
+  /**
+   * Returns an {@link EventExecutor.Factory} timing the executors
+   * created by the specified factory.
+   *
+   * @param factory the executor factory
+   * @param <E> the event type
+   * @param <L> the listener type
+   * @return a profiling executor factory
+   */
+  public <E, L> EventExecutor.@NonNull Factory<E, L> wrap(final EventExecutor.@NonNull Factory<E, L> factory) {
+    requireNonNull(factory, "factory");
+    return (object, method) -> {
+      final EventExecutor<E, L> executor = factory.create(object, method);
+      final Listener listener = this.listeners.computeIfAbsent(method, key -> new Listener(method.getDeclaringClass(), method.getName(), method));
+      return (target, event) -> {
+        if(!this.enabled || !(event instanceof PacketEvent)) {
+          executor.invoke(target, event);
+          return;
+        }
+        final long start = System.nanoTime();
+        try {
+          executor.invoke(target, event);
+        } finally {
+          this.record(listener, ((PacketEvent<?>) event).packet().getClass(), System.nanoTime() - start);
+        }
+      };
+    };
+  }
+
+  /**
+   * Returns a {@link PacketDispatcher.Invoker} timing the specified
+   * invoker of a functional listener, profiled by the class of the
+   * specified listener object.
+   *
+   * @param listener the listener object
+   * @param invoker the listener invoker
+   * @return a profiling invoker
+   */
+  public PacketDispatcher.@NonNull Invoker wrap(final @NonNull Object listener, final PacketDispatcher.@NonNull Invoker invoker) {
+    requireNonNull(invoker, "invoker");
+    final Class<?> type = requireNonNull(listener, "listener").getClass();
+    final Listener profiled = this.listeners.computeIfAbsent(type, key -> new Listener(type, "handle", null));
+    return event -> {
+      if(!this.enabled) {
+        invoker.invoke(event);
+        return;
+      }
+      final long start = System.nanoTime();
+      try {
+        invoker.invoke(event);
+      } finally {
+        this.record(profiled, event.packet().getClass(), System.nanoTime() - start);
+      }
+    };
+  }
+
+  /**
+   * Returns the listener methods and packet classes with the
+   * highest total time spent handling packets, highest first.
+   *
+   * @param limit the maximum number of entries
+   * @return the top offenders
+   */
+  public @NonNull List<Entry> top(final int limit) {
+    if(limit < 0) throw new IllegalArgumentException("Limit must not be negative");
+    final List<Entry> entries = new ArrayList<>();
+    for(final Listener listener : this.listeners.values()) {
+      for(final Map.Entry<Class<?>, LatencyHistogram> timing : listener.timings.entrySet()) {
+        final LatencyHistogram.Snapshot snapshot = timing.getValue().snapshot();
+        if(snapshot.count() > 0) entries.add(new Entry(listener, timing.getKey(), snapshot));
+      }
+    }
+    entries.sort(Comparator.comparingLong((Entry entry) -> entry.timing().total()).reversed());
+    return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+  }
+
+  /**
+   * Logs the listener methods and packet classes with the highest
+   * total time spent handling packets.
+   *
+   * @param limit the maximum number of entries
+   */
+  public void dump(final int limit) {
+    final List<Entry> entries = this.top(limit);
+    this.logger.info("Top " + entries.size() + " packet listeners by total time:");
+    for(final Entry entry : entries) {
+      this.logger.info("  " + entry);
+    }
+  }
+
+  /**
+   * Clears the recorded listener timings.
+   */
+  public void reset() {
+    for(final Listener listener : this.listeners.values()) {
+      listener.timings.clear();
+    }
+  }
+
+  private void record(final @NonNull Listener listener, final @NonNull Class<?> packet, final long nanos) {
+    listener.timing(packet).record(nanos);
+    final long threshold = this.threshold;
+    if(threshold < 0 || nanos < threshold) return;
+    final long now = System.currentTimeMillis();
+    final long last = listener.warned.get();
+    if(now - last < ListenerProfiler.WARNING_INTERVAL || !listener.warned.compareAndSet(last, now)) return;
+    this.logger.warn("Packet listener " + listener.owner.getName() + "#" + listener.name
+      + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms to handle " + packet.getSimpleName());
+  }
+
+  private static final class Listener {
+    private final Class<?> owner;
+    private final String name;
+    private final @Nullable Method method;
+    private final ConcurrentMap<Class<?>, LatencyHistogram> timings = Maps.newConcurrentMap();
+    private final AtomicLong warned = new AtomicLong(Long.MIN_VALUE / 2);
+
+    /* package */ Listener(final @NonNull Class<?> owner, final @NonNull String name, final @Nullable Method method) {
+      this.owner = owner;
+      this.name = name;
+      this.method = method;
+    }
+
+    /* package */ @NonNull LatencyHistogram timing(final @NonNull Class<?> packet) {
+      final LatencyHistogram timing = this.timings.get(packet);
+      return timing != null ? timing : this.timings.computeIfAbsent(packet, key -> new LatencyHistogram());
+    }
+  }
+
+  /**
+   * The recorded timing of a listener handling a packet class.
+   */
+  public static final class Entry {
+    private final Class<?> owner;
+    private final String name;
+    private final @Nullable Method method;
+    private final Class<?> packet;
+    private final LatencyHistogram.Snapshot timing;
+
+    /* package */ Entry(final @NonNull Listener listener, final @NonNull Class<?> packet, final LatencyHistogram.@NonNull Snapshot timing) {
+      this.owner = listener.owner;
+      this.name = listener.name;
+      this.method = listener.method;
+      this.packet = packet;
+      this.timing = timing;
+    }
+
+    /**
+     * Returns the class declaring the listener method, or the
+     * class of a functional listener.
+     *
+     * @return the listener class
+     */
+    public @NonNull Class<?> listener() {
+      return this.owner;
+    }
+
+    /**
+     * Returns the name of the listener method.
+     *
+     * @return the listener name
+     */
+    public @NonNull String name() {
+      return this.name;
+    }
+
+    /**
+     * Returns the listener method, or {@code null} if the
+     * listener is functional.
+     *
+     * @return the listener method, if present
+     */
+    public @Nullable Method method() {
+      return this.method;
+    }
+
+    /**
+     * Returns the packet class handled.
+     *
+     * @return the packet class
+     */
+    public @NonNull Class<?> packet() {
+      return this.packet;
+    }
+
+    /**
+     * Returns the timing of the listener method handling the
+     * packet class.
+     *
+     * @return the listener timing
+     */
+    public LatencyHistogram.@NonNull Snapshot timing() {
+      return this.timing;
+    }
+
+    @Override
+    public String toString() {
+      return this.owner.getName() + "#" + this.name + " (" + this.packet.getSimpleName() + "): "
+        + "count=" + this.timing.count()
+        + ", total=" + TimeUnit.NANOSECONDS.toMicros(this.timing.total()) + "us"
+        + ", max=" + TimeUnit.NANOSECONDS.toMicros(this.timing.max()) + "us"
+        + ", p99=" + TimeUnit.NANOSECONDS.toMicros(this.timing.percentile(0.99D)) + "us";
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.metrics;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.inject.Singleton;
+import com.ichorpowered.protocolcontrol.packet.PacketDirection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A registry of the packet traffic flowing through the injected
+ * channels, counting the packets and bytes of each packet class
+ * in each {@link PacketDirection}, and the time spent dispatching
+ * them to listeners.
+ *
+ * Recording does nothing while the metrics are disabled, and
+ * does not allocate once a packet class has been seen.
+ */
+@Singleton
+public final class ProtocolMetrics {
+  public static final String METRICS = "protocolcontrol.metrics";
+  private static final PacketDirection[] DIRECTIONS = PacketDirection.values();
+  private final ConcurrentMap<Class<?>, Traffic> traffic = Maps.newConcurrentMap();
+  private final ClassValue<Traffic> lookup = new ClassValue<Traffic>() {
+    @Override
+    protected Traffic computeValue(final Class<?> type) {
+      return ProtocolMetrics.this.traffic.computeIfAbsent(type, key -> new Traffic());
+    }
+  };
+  private final LatencyHistogram[] dispatch = new LatencyHistogram[ProtocolMetrics.DIRECTIONS.length];
+  private volatile boolean enabled = Boolean.getBoolean(ProtocolMetrics.METRICS);
+
+  public ProtocolMetrics() {
+    for(int i = 0; i < this.dispatch.length; i++) {
+      this.dispatch[i] = new LatencyHistogram();
+    }
+  }
+
+  /**
+   * Returns {@code true} if metrics are recorded.
+   *
+   * @return whether metrics are recorded
+   */
+  public boolean enabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Sets whether metrics are recorded.
+   *
+   * Byte totals are only recorded for channels injected
+   * while the metrics are enabled.
+   *
+   * @param enabled whether metrics are recorded
+   */
+  public void enabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Records a packet of the specified class in the specified
+   * {@link PacketDirection}, with the specified number of bytes
+   * it was sent or received as.
+   *
+   * @param direction the packet direction
+   * @param packet the packet class
+   * @param bytes the number of bytes
+   */
+  public void packet(final @NonNull PacketDirection direction, final @NonNull Class<?> packet, final int bytes) {
+    if(!this.enabled) return;
+    final Traffic traffic = this.lookup.get(packet);
+    traffic.packets[direction.ordinal()].increment();
+    if(bytes > 0) traffic.bytes[direction.ordinal()].add(bytes);
+  }
+
+  /**
+   * Records the time spent dispatching a packet in the specified
+   * {@link PacketDirection} to listeners.
+   *
+   * @param direction the packet direction
+   * @param nanos the dispatch time in nanoseconds
+   */
+  public void dispatch(final @NonNull PacketDirection direction, final long nanos) {
+    if(!this.enabled) return;
+    this.dispatch[direction.ordinal()].record(nanos);
+  }
+
+  /**
+   * Clears the recorded metrics.
+   */
+  public void reset() {
+    for(final Traffic traffic : this.traffic.values()) {
+      for(int i = 0; i < ProtocolMetrics.DIRECTIONS.length; i++) {
+        traffic.packets[i].reset();
+        traffic.bytes[i].reset();
+      }
+    }
+    for(final LatencyHistogram histogram : this.dispatch) {
+      histogram.reset();
+    }
+  }
+
+  /**
+   * Returns a {@link Snapshot} of the recorded metrics.
+   *
+   * @return the metrics snapshot
+   */
+  public @NonNull Snapshot snapshot() {
+    final Map<PacketDirection, Map<Class<?>, Count>> traffic = new EnumMap<>(PacketDirection.class);
+    final Map<PacketDirection, LatencyHistogram.Snapshot> dispatch = new EnumMap<>(PacketDirection.class);
+    for(final PacketDirection direction : ProtocolMetrics.DIRECTIONS) {
+      final ImmutableMap.Builder<Class<?>, Count> counts = ImmutableMap.builder();
+      for(final Map.Entry<Class<?>, Traffic> entry : this.traffic.entrySet()) {
+        final long packets = entry.getValue().packets[direction.ordinal()].sum();
+        if(packets == 0) continue;
+        counts.put(entry.getKey(), new Count(packets, entry.getValue().bytes[direction.ordinal()].sum()));
+      }
+      traffic.put(direction, counts.build());
+      dispatch.put(direction, this.dispatch[direction.ordinal()].snapshot());
+    }
+    return new Snapshot(traffic, dispatch);
+  }
+
+  private static final class Traffic {
+    private final LongAdder[] packets = new LongAdder[ProtocolMetrics.DIRECTIONS.length];
+    private final LongAdder[] bytes = new LongAdder[ProtocolMetrics.DIRECTIONS.length];
+
+    /* package */ Traffic() {
+      for(int i = 0; i < ProtocolMetrics.DIRECTIONS.length; i++) {
+        this.packets[i] = new LongAdder();
+        this.bytes[i] = new LongAdder();
+      }
+    }
+  }
+
+  /**
+   * An immutable snapshot of the {@link ProtocolMetrics}.
+   */
+  public static final class Snapshot {
+    private final Map<PacketDirection, Map<Class<?>, Count>> traffic;
+    private final Map<PacketDirection, LatencyHistogram.Snapshot> dispatch;
+
+    /* package */ Snapshot(final @NonNull Map<PacketDirection, Map<Class<?>, Count>> traffic,
+                           final @NonNull Map<PacketDirection, LatencyHistogram.Snapshot> dispatch) {
+      this.traffic = traffic;
+      this.dispatch = dispatch;
+    }
+
+    /**
+     * Returns the {@link Count} of each packet class seen in
+     * the specified {@link PacketDirection}.
+     *
+     * @param direction the packet direction
+     * @return the packet counts
+     */
+    public @NonNull Map<Class<?>, Count> traffic(final @NonNull PacketDirection direction) {
+      return this.traffic.get(requireNonNull(direction, "direction"));
+    }
+
+    /**
+     * Returns the listener dispatch latencies of packets in
+     * the specified {@link PacketDirection}.
+     *
+     * @param direction the packet direction
+     * @return the dispatch latencies
+     */
+    public LatencyHistogram.@NonNull Snapshot dispatch(final @NonNull PacketDirection direction) {
+      return this.dispatch.get(requireNonNull(direction, "direction"));
+    }
+  }
+
+  /**
+   * The number of packets and bytes of a packet class.
+   */
+  public static final class Count {
+    private final long packets;
+    private final long bytes;
+
+    /* package */ Count(final long packets, final long bytes) {
+      this.packets = packets;
+      this.bytes = bytes;
+    }
+
+    public long packets() {
+      return this.packets;
+    }
+
+    public long bytes() {
+      return this.bytes;
+    }
+
+    @Override
+    public String toString() {
+      return "Count{packets=" + this.packets + ", bytes=" + this.bytes + "}";
+    }
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.metrics;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import io.netty.channel.EventLoop;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.slf4j.Logger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A detector of the time the injected handlers spend blocking
+ * each {@link EventLoop}, and of how long tasks wait to run on
+ * each event loop.
+ *
+ * Handler invocations taking longer than the stall threshold
+ * are counted and logged with the packet and player, at most
+ * once every {@link #WARNING_INTERVAL} milliseconds per event
+ * loop. Each event loop is probed with a scheduled task every
+ * probe interval, recording how late the task runs.
+ */
+@Singleton
+public final class StallDetector {
+  public static final String STALL_DETECTOR = "protocolcontrol.stallDetector";
+  public static final String STALL_THRESHOLD = "protocolcontrol.stallMillis";
+  public static final String PROBE_INTERVAL = "protocolcontrol.stallProbeMillis";
+  public static final long WARNING_INTERVAL = 10000L;
+  private final Logger logger;
+  private final ConcurrentMap<EventLoop, Loop> loops = Maps.newConcurrentMap();
+  private volatile boolean enabled = Boolean.getBoolean(StallDetector.STALL_DETECTOR);
+  private volatile long threshold = TimeUnit.MILLISECONDS.toNanos(Long.getLong(StallDetector.STALL_THRESHOLD, 10L));
+  private volatile long interval = TimeUnit.MILLISECONDS.toNanos(Long.getLong(StallDetector.PROBE_INTERVAL, 1000L));
+
+  @Inject
+  public StallDetector(final Logger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Returns {@code true} if event loop stalls are detected.
+   *
+   * @return whether stalls are detected
+   */
+  public boolean enabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Sets whether event loop stalls are detected.
+   *
+   * Event loops are probed again once a channel on them
+   * becomes active.
+   *
+   * @param enabled whether stalls are detected
+   */
+  public void enabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns the time in nanoseconds a handler may block an event
+   * loop before it is counted as a stall.
+   *
+   * @return the stall threshold
+   */
+  public long threshold() {
+    return this.threshold;
+  }
+
+  /**
+   * Sets the time a handler may block an event loop before it
+   * is counted as a stall.
+   *
+   * @param time the stall threshold
+   * @param unit the time unit
+   */
+  public void threshold(final long time, final @NonNull TimeUnit unit) {
+    if(time < 0) throw new IllegalArgumentException("Threshold must not be negative");
+    this.threshold = requireNonNull(unit, "unit").toNanos(time);
+  }
+
+  /**
+   * Returns the time in nanoseconds between probes of an event
+   * loop.
+   *
+   * @return the probe interval
+   */
+  public long interval() {
+    return this.interval;
+  }
+
+  /**
+   * Sets the time between probes of an event loop.
+   *
+   * @param time the probe interval
+   * @param unit the time unit
+   */
+  public void interval(final long time, final @NonNull TimeUnit unit) {
+    if(time <= 0) throw new IllegalArgumentException("Interval must be positive");
+    this.interval = requireNonNull(unit, "unit").toNanos(time);
+  }
+
+  /**
+   * Starts probing the specified {@link EventLoop}, unless it is
+   * already being probed or stalls are not detected.
+   *
+   * @param loop the event loop
+   */
+  public void probe(final @NonNull EventLoop loop) {
+    requireNonNull(loop, "loop");
+    if(!this.enabled) return;
+    final Loop stats = this.loop(loop);
+    if(stats.probing.compareAndSet(false, true)) new Probe(loop, stats).schedule();
+  }
+
+  /**
+   * Records a handler blocking the specified {@link EventLoop}
+   * for the specified number of nanoseconds while handling the
+   * specified message for the specified {@link ChannelProfile}.
+   *
+   * @param loop the event loop
+   * @param nanos the handler time in nanoseconds
+   * @param message the handled message
+   * @param profile the channel profile
+   */
+  public void record(final @NonNull EventLoop loop, final long nanos, final @NonNull Object message,
+                     final @NonNull ChannelProfile profile) {
+    if(!this.enabled) return;
+    final Loop stats = this.loop(loop);
+    stats.handlers.record(nanos);
+    if(nanos < this.threshold) return;
+    stats.stalls.increment();
+    final long now = System.currentTimeMillis();
+    final long last = stats.warned.get();
+    if(now - last < StallDetector.WARNING_INTERVAL || !stats.warned.compareAndSet(last, now)) return;
+    final UUID player = profile.player();
+    this.logger.warn("Handling " + message.getClass().getSimpleName() + " for " + (player != null ? player : "an unknown player")
+      + " blocked event loop " + loop + " for " + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms");
+  }
+
+  /**
+   * Clears the recorded handler times, probe delays and stalls.
+   */
+  public void reset() {
+    for(final Loop stats : this.loops.values()) {
+      stats.handlers.reset();
+      stats.delay.reset();
+      stats.stalls.reset();
+    }
+  }
+
+  /**
+   * Returns a {@link Snapshot} of each event loop seen.
+   *
+   * @return the event loop snapshots
+   */
+  public @NonNull Map<EventLoop, Snapshot> snapshot() {
+    final ImmutableMap.Builder<EventLoop, Snapshot> snapshot = ImmutableMap.builder();
+    for(final Map.Entry<EventLoop, Loop> entry : this.loops.entrySet()) {
+      final Loop stats = entry.getValue();
+      snapshot.put(entry.getKey(), new Snapshot(stats.handlers.snapshot(), stats.delay.snapshot(), stats.stalls.sum()));
+    }
+    return snapshot.build();
+  }
+
+  private @NonNull Loop loop(final @NonNull EventLoop loop) {
+    final Loop stats = this.loops.get(loop);
+    return stats != null ? stats : this.loops.computeIfAbsent(loop, key -> new Loop());
+  }
+
+  private static final class Loop {
+    private final LatencyHistogram handlers = new LatencyHistogram();
+    private final LatencyHistogram delay = new LatencyHistogram();
+    private final LongAdder stalls = new LongAdder();
+    private final AtomicLong warned = new AtomicLong(Long.MIN_VALUE / 2);
+    private final AtomicBoolean probing = new AtomicBoolean();
+  }
+
+  private final class Probe implements Runnable {
+    private final EventLoop loop;
+    private final Loop stats;
+    private long expected;
+
+    /* package */ Probe(final @NonNull EventLoop loop, final @NonNull Loop stats) {
+      this.loop = loop;
+      this.stats = stats;
+    }
+
+    /* package */ void schedule() {
+      if(!StallDetector.this.enabled || this.loop.isShuttingDown()) {
+        this.stats.probing.set(false);
+        return;
+      }
+      final long interval = StallDetector.this.interval;
+      this.expected = System.nanoTime() + interval;
+      try {
+        this.loop.schedule(this, interval, TimeUnit.NANOSECONDS);
+      } catch(RejectedExecutionException exception) {
+        this.stats.probing.set(false);
+      }
+    }
+
+    @Override
+    public void run() {
+      this.stats.delay.record(System.nanoTime() - this.expected);
+      this.schedule();
+    }
+  }
+
+  /**
+   * An immutable snapshot of an event loop.
+   */
+  public static final class Snapshot {
+    private final LatencyHistogram.Snapshot handlers;
+    private final LatencyHistogram.Snapshot delay;
+    private final long stalls;
+
+    /* package */ Snapshot(final LatencyHistogram.@NonNull Snapshot handlers, final LatencyHistogram.@NonNull Snapshot delay,
+                           final long stalls) {
+      this.handlers = handlers;
+      this.delay = delay;
+      this.stalls = stalls;
+    }
+
+    /**
+     * Returns the time the injected handlers spent blocking the
+     * event loop.
+     *
+     * @return the handler times
+     */
+    public LatencyHistogram.@NonNull Snapshot handlers() {
+      return this.handlers;
+    }
+
+    /**
+     * Returns how late the probe tasks ran on the event loop.
+     *
+     * @return the probe delays
+     */
+    public LatencyHistogram.@NonNull Snapshot delay() {
+      return this.delay;
+    }
+
+    /**
+     * Returns the number of handler invocations exceeding the
+     * stall threshold.
+     *
+     * @return the number of stalls
+     */
+    public long stalls() {
+      return this.stalls;
+    }
+  }
+}
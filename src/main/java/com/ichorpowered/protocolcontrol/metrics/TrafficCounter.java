@@ -0,0 +1,67 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.metrics;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+/**
+ * A handler placed next to the channel decoder or encoder, counting
+ * the bytes of the frames passing through it, so they can be
+ * attributed to the packet they were decoded to or encoded from.
+ *
+ * The decoder and encoder run on the channel event loop within the
+ * same call as this handler, so the counted bytes are taken right
+ * after a packet is received or written.
+ */
+public final class TrafficCounter extends ChannelDuplexHandler {
+  private int bytes = 0;
+
+  /**
+   * Returns the number of bytes counted since this was
+   * last called, and resets it.
+   *
+   * @return the number of bytes
+   */
+  public int take() {
+    final int bytes = this.bytes;
+    this.bytes = 0;
+    return bytes;
+  }
+
+  @Override
+  public void channelRead(final ChannelHandlerContext context, final Object message) throws Exception {
+    if(message instanceof ByteBuf) this.bytes = ((ByteBuf) message).readableBytes();
+    super.channelRead(context, message);
+  }
+
+  @Override
+  public void write(final ChannelHandlerContext context, final Object message, final ChannelPromise promise) throws Exception {
+    if(message instanceof ByteBuf) this.bytes += ((ByteBuf) message).readableBytes();
+    super.write(context, message, promise);
+  }
+}
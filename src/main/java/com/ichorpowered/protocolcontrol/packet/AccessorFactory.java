@@ -0,0 +1,394 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import static java.util.Objects.requireNonNull;
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.ATHROW;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.IRETURN;
+import static org.objectweb.asm.Opcodes.NEW;
+import static org.objectweb.asm.Opcodes.PUTSTATIC;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V1_8;
+
+/**
+ * A factory generating a {@link PacketAccessor} for each
+ * {@link PacketRemapper.Structure}.
+ *
+ * The generated accessor holds the field {@link MethodHandle}s
+ * in static final fields and invokes them with their exact type,
+ * selecting the field with a switch on its slot. This allows the
+ * handles to be treated as constants and inlined as a direct
+ * field access.
+ */
+public final class AccessorFactory {
+  private static final String PACKAGE = "com.ichorpowered.protocolcontrol.generated";
+  private static final String ACCESSOR_NAME = Type.getInternalName(PacketAccessor.class);
+  private static final String FACTORY_NAME = Type.getInternalName(AccessorFactory.class);
+  private static final String HANDLE_NAME = Type.getInternalName(MethodHandle.class);
+  private static final String HANDLE_DESC = Type.getDescriptor(MethodHandle.class);
+  private static final String HANDLES_DESC = "(Ljava/lang/String;)[" + AccessorFactory.HANDLE_DESC;
+  private static final String EXCEPTION_NAME = Type.getInternalName(IllegalArgumentException.class);
+  private static final String[] THROWABLE_NAME = new String[] { Type.getInternalName(Throwable.class) };
+  private static final List<Class<?>> PRIMITIVES = ImmutableList.of(boolean.class, byte.class, short.class, char.class,
+    int.class, long.class, float.class, double.class);
+  private static final int GETTER = 0;
+  private static final int SETTER = 1;
+  private static final int PRIMITIVE_GETTER = 2;
+  private static final int PRIMITIVE_SETTER = 3;
+  private static final int HANDLES_PER_SLOT = 4;
+  private static final Map<String, MethodHandle[]> HANDLES = Maps.newConcurrentMap();
+
+  /**
+   * Returns the {@link MethodHandle}s for the generated accessor
+   * with the specified class name.
+   *
+   * This is only used by generated accessors as they are
+   * initialized.
+   *
+   * @param name the generated class name
+   * @return the generated accessor handles
+   */
+  public static MethodHandle @NonNull [] handles(final @NonNull String name) {
+    final MethodHandle[] handles = AccessorFactory.HANDLES.remove(requireNonNull(name, "name"));
+    if(handles == null) throw new IllegalStateException("Unable to locate handles for " + name);
+    return handles;
+  }
+
+  private final String session = UUID.randomUUID().toString().substring(26);
+  private final AtomicInteger id = new AtomicInteger();
+  private final DefiningClassLoader classLoader;
+
+  /* package */ AccessorFactory(final @NonNull ClassLoader parent) {
+    this.classLoader = new DefiningClassLoader(parent);
+  }
+
+  /**
+   * Generates a {@link PacketAccessor} for the specified packet
+   * class, where the slot of each {@link PacketRemapper.Handle} is
+   * its position in the specified list.
+   *
+   * @param packet the packet class
+   * @param handles the packet handles
+   * @return the generated accessor
+   * @throws Exception exceptions attempting to generate the accessor
+   */
+  /* package */ @NonNull PacketAccessor create(final @NonNull Class<?> packet,
+                                               final @NonNull List<PacketRemapper.Handle> handles) throws Exception {
+    final String name = String.format("%s.%s-%s-%d", AccessorFactory.PACKAGE, packet.getSimpleName(), this.session, this.id.incrementAndGet());
+    final String internalName = name.replace('.', '/');
+    final MethodHandle[] constants = new MethodHandle[handles.size() * AccessorFactory.HANDLES_PER_SLOT];
+    for(int slot = 0; slot < handles.size(); slot++) {
+      final PacketRemapper.Handle handle = handles.get(slot);
+      final Class<?> type = handle.getter().type().returnType();
+      final int offset = slot * AccessorFactory.HANDLES_PER_SLOT;
+      constants[offset + AccessorFactory.GETTER] = handle.getter().asType(MethodType.methodType(Object.class, Object.class));
+      constants[offset + AccessorFactory.SETTER] = handle.setter().asType(MethodType.methodType(void.class, Object.class, Object.class));
+      if(type.isPrimitive()) {
+        constants[offset + AccessorFactory.PRIMITIVE_GETTER] = handle.getter().asType(MethodType.methodType(type, Object.class));
+        constants[offset + AccessorFactory.PRIMITIVE_SETTER] = handle.setter().asType(MethodType.methodType(void.class, Object.class, type));
+      }
+    }
+
+    final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    writer.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, internalName, null, "java/lang/Object", new String[] { AccessorFactory.ACCESSOR_NAME });
+    for(int index = 0; index < constants.length; index++) {
+      if(constants[index] == null) continue;
+      writer.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "handle" + index, AccessorFactory.HANDLE_DESC, null, null).visitEnd();
+    }
+    AccessorFactory.generateInitializers(writer, internalName, name, constants);
+    AccessorFactory.generateGetter(writer, internalName, "get", Object.class, constants, AccessorFactory.GETTER);
+    AccessorFactory.generateSetter(writer, internalName, "set", Object.class, constants, AccessorFactory.SETTER);
+    for(final Class<?> primitive : AccessorFactory.PRIMITIVES) {
+      final String suffix = Character.toUpperCase(primitive.getName().charAt(0)) + primitive.getName().substring(1);
+      AccessorFactory.generateGetter(writer, internalName, "get" + suffix, primitive, constants, AccessorFactory.PRIMITIVE_GETTER);
+      AccessorFactory.generateSetter(writer, internalName, "set" + suffix, primitive, constants, AccessorFactory.PRIMITIVE_SETTER);
+    }
+    writer.visitEnd();
+
+    AccessorFactory.HANDLES.put(name, constants);
+    try {
+      final Class<?> accessor = this.classLoader.defineClass(name, writer.toByteArray());
+      return (PacketAccessor) accessor.getConstructor().newInstance();
+    } finally {
+      AccessorFactory.HANDLES.remove(name);
+    }
+  }
+
+  private static void generateInitializers(final @NonNull ClassWriter writer, final @NonNull String internalName,
+                                           final @NonNull String name, final MethodHandle @NonNull [] constants) {
+    final MethodVisitor constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+    constructor.visitCode();
+    constructor.visitVarInsn(ALOAD, 0);
+    constructor.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    constructor.visitInsn(RETURN);
+    constructor.visitMaxs(0, 0);
+    constructor.visitEnd();
+
+    final MethodVisitor initializer = writer.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+    initializer.visitCode();
+    initializer.visitLdcInsn(name);
+    initializer.visitMethodInsn(INVOKESTATIC, AccessorFactory.FACTORY_NAME, "handles", AccessorFactory.HANDLES_DESC, false);
+    initializer.visitVarInsn(ASTORE, 0);
+    for(int index = 0; index < constants.length; index++) {
+      if(constants[index] == null) continue;
+      initializer.visitVarInsn(ALOAD, 0);
+      initializer.visitLdcInsn(index);
+      initializer.visitInsn(AALOAD);
+      initializer.visitFieldInsn(PUTSTATIC, internalName, "handle" + index, AccessorFactory.HANDLE_DESC);
+    }
+    initializer.visitInsn(RETURN);
+    initializer.visitMaxs(0, 0);
+    initializer.visitEnd();
+  }
+
+  private static void generateGetter(final @NonNull ClassWriter writer, final @NonNull String internalName,
+                                     final @NonNull String method, final @NonNull Class<?> type,
+                                     final MethodHandle @NonNull [] constants, final int kind) {
+    final Type valueType = Type.getType(type);
+    final MethodVisitor visitor = writer.visitMethod(ACC_PUBLIC, method, "(Ljava/lang/Object;I)" + valueType.getDescriptor(),
+      null, AccessorFactory.THROWABLE_NAME);
+    visitor.visitCode();
+    final int[] slots = AccessorFactory.slots(constants, type, kind);
+    final Label[] labels = AccessorFactory.generateSwitch(visitor, slots);
+    for(int index = 0; index < slots.length; index++) {
+      visitor.visitLabel(labels[index]);
+      visitor.visitFieldInsn(GETSTATIC, internalName, "handle" + (slots[index] * AccessorFactory.HANDLES_PER_SLOT + kind), AccessorFactory.HANDLE_DESC);
+      visitor.visitVarInsn(ALOAD, 1);
+      visitor.visitMethodInsn(INVOKEVIRTUAL, AccessorFactory.HANDLE_NAME, "invokeExact", "(Ljava/lang/Object;)" + valueType.getDescriptor(), false);
+      visitor.visitInsn(valueType.getOpcode(IRETURN));
+    }
+    visitor.visitMaxs(0, 0);
+    visitor.visitEnd();
+  }
+
+  private static void generateSetter(final @NonNull ClassWriter writer, final @NonNull String internalName,
+                                     final @NonNull String method, final @NonNull Class<?> type,
+                                     final MethodHandle @NonNull [] constants, final int kind) {
+    final Type valueType = Type.getType(type);
+    final MethodVisitor visitor = writer.visitMethod(ACC_PUBLIC, method, "(Ljava/lang/Object;I" + valueType.getDescriptor() + ")V",
+      null, AccessorFactory.THROWABLE_NAME);
+    visitor.visitCode();
+    final int[] slots = AccessorFactory.slots(constants, type, kind);
+    final Label[] labels = AccessorFactory.generateSwitch(visitor, slots);
+    for(int index = 0; index < slots.length; index++) {
+      visitor.visitLabel(labels[index]);
+      visitor.visitFieldInsn(GETSTATIC, internalName, "handle" + (slots[index] * AccessorFactory.HANDLES_PER_SLOT + kind), AccessorFactory.HANDLE_DESC);
+      visitor.visitVarInsn(ALOAD, 1);
+      visitor.visitVarInsn(valueType.getOpcode(ILOAD), 3);
+      visitor.visitMethodInsn(INVOKEVIRTUAL, AccessorFactory.HANDLE_NAME, "invokeExact", "(Ljava/lang/Object;" + valueType.getDescriptor() + ")V", false);
+      visitor.visitInsn(RETURN);
+    }
+    visitor.visitMaxs(0, 0);
+    visitor.visitEnd();
+  }
+
+  private static Label @NonNull [] generateSwitch(final @NonNull MethodVisitor visitor, final int @NonNull [] slots) {
+    final Label invalid = new Label();
+    final Label[] labels = new Label[slots.length];
+    for(int index = 0; index < slots.length; index++) labels[index] = new Label();
+    if(slots.length > 0) {
+      visitor.visitVarInsn(ILOAD, 2);
+      if(slots[slots.length - 1] - slots[0] == slots.length - 1) {
+        visitor.visitTableSwitchInsn(slots[0], slots[slots.length - 1], invalid, labels);
+      } else {
+        visitor.visitLookupSwitchInsn(invalid, slots, labels);
+      }
+    }
+    visitor.visitLabel(invalid);
+    visitor.visitTypeInsn(NEW, AccessorFactory.EXCEPTION_NAME);
+    visitor.visitInsn(DUP);
+    visitor.visitLdcInsn("Unable to locate field for slot");
+    visitor.visitMethodInsn(INVOKESPECIAL, AccessorFactory.EXCEPTION_NAME, "<init>", "(Ljava/lang/String;)V", false);
+    visitor.visitInsn(ATHROW);
+    return labels;
+  }
+
+  private static int @NonNull [] slots(final MethodHandle @NonNull [] constants, final @NonNull Class<?> type, final int kind) {
+    final int[] slots = new int[constants.length / AccessorFactory.HANDLES_PER_SLOT];
+    int count = 0;
+    for(int slot = 0; slot < slots.length; slot++) {
+      final MethodHandle handle = constants[slot * AccessorFactory.HANDLES_PER_SLOT + kind];
+      if(handle == null) continue;
+      final Class<?> handleType = kind == AccessorFactory.GETTER || kind == AccessorFactory.PRIMITIVE_GETTER
+        ? handle.type().returnType()
+        : handle.type().parameterType(1);
+      if(handleType == type) slots[count++] = slot;
+    }
+    final int[] result = new int[count];
+    System.arraycopy(slots, 0, result, 0, count);
+    return result;
+  }
+
+  private static final class DefiningClassLoader extends ClassLoader {
+    static {
+      ClassLoader.registerAsParallelCapable();
+    }
+
+    /* package */ DefiningClassLoader(final @NonNull ClassLoader parent) {
+      super(parent);
+    }
+
+    /* package */ @NonNull Class<?> defineClass(final @NonNull String name, final byte @NonNull [] bytes) {
+      return this.defineClass(name, bytes, 0, bytes.length);
+    }
+  }
+
+  /**
+   * A {@link PacketAccessor} invoking the {@link PacketRemapper.Handle}s
+   * directly, used when an accessor could not be generated.
+   */
+  /* package */ static final class HandleAccessor implements PacketAccessor {
+    private final PacketRemapper.Handle[] handles;
+
+    /* package */ HandleAccessor(final @NonNull List<PacketRemapper.Handle> handles) {
+      this.handles = handles.toArray(new PacketRemapper.Handle[0]);
+    }
+
+    @Override
+    public @Nullable Object get(final @NonNull Object packet, final int slot) throws Throwable {
+      return this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void set(final @NonNull Object packet, final int slot, final @Nullable Object value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    @Override
+    public boolean getBoolean(final @NonNull Object packet, final int slot) throws Throwable {
+      return (boolean) this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void setBoolean(final @NonNull Object packet, final int slot, final boolean value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    @Override
+    public byte getByte(final @NonNull Object packet, final int slot) throws Throwable {
+      return (byte) this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void setByte(final @NonNull Object packet, final int slot, final byte value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    @Override
+    public short getShort(final @NonNull Object packet, final int slot) throws Throwable {
+      return (short) this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void setShort(final @NonNull Object packet, final int slot, final short value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    @Override
+    public char getChar(final @NonNull Object packet, final int slot) throws Throwable {
+      return (char) this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void setChar(final @NonNull Object packet, final int slot, final char value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    @Override
+    public int getInt(final @NonNull Object packet, final int slot) throws Throwable {
+      return (int) this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void setInt(final @NonNull Object packet, final int slot, final int value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    @Override
+    public long getLong(final @NonNull Object packet, final int slot) throws Throwable {
+      return (long) this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void setLong(final @NonNull Object packet, final int slot, final long value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    @Override
+    public float getFloat(final @NonNull Object packet, final int slot) throws Throwable {
+      return (float) this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void setFloat(final @NonNull Object packet, final int slot, final float value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    @Override
+    public double getDouble(final @NonNull Object packet, final int slot) throws Throwable {
+      return (double) this.handle(slot).getter().invoke(packet);
+    }
+
+    @Override
+    public void setDouble(final @NonNull Object packet, final int slot, final double value) throws Throwable {
+      this.handle(slot).setter().invoke(packet, value);
+    }
+
+    private PacketRemapper.@NonNull Handle handle(final int slot) {
+      if(slot < 0 || slot >= this.handles.length) throw new IllegalArgumentException("Unable to locate field for slot");
+      return this.handles[slot];
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+/**
+ * Represents how the fields of a packet are copied by
+ * the {@link PacketRemapper}.
+ */
+public enum CopyMode {
+  /**
+   * The mode for when the field values of the packet are
+   * shared with the copy.
+   */
+  SHALLOW,
+
+  /**
+   * The mode for when nested packets, arrays, collections
+   * and maps are copied as well, so they can be changed
+   * without affecting the original packet.
+   *
+   * Buffers are shared as retained duplicates, which can be
+   * read without affecting the original packet but share its
+   * content. The copy holds its own reference to each buffer,
+   * released by whoever releases the buffers of the copy.
+   *
+   * Other values, such as the elements of a collection
+   * or the keys of a map, are still shared.
+   */
+  DEEP
+}
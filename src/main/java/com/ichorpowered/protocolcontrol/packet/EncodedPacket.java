@@ -0,0 +1,143 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.AbstractReferenceCounted;
+import net.minecraft.network.EnumConnectionState;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A reference counted outgoing packet that has already been
+ * encoded by the {@link PacketEncoder}, and is compressed the
+ * first time it is written to a channel that compresses packets.
+ *
+ * Each write uses a retained duplicate of the encoded buffer,
+ * so the packet must be released once it is no longer sent.
+ */
+public final class EncodedPacket extends AbstractReferenceCounted {
+  private final PacketEncoder encoder;
+  private final ByteBufAllocator allocator;
+  private final Class<?> packet;
+  private final EnumConnectionState state;
+  private final ByteBuf frame;
+  private final int threshold;
+  private @Nullable ByteBuf compressed;
+
+  /* package */ EncodedPacket(final @NonNull PacketEncoder encoder, final @NonNull ByteBufAllocator allocator,
+                              final @NonNull Class<?> packet, final @NonNull EnumConnectionState state,
+                              final @NonNull ByteBuf frame, final int threshold) {
+    this.encoder = encoder;
+    this.allocator = allocator;
+    this.packet = packet;
+    this.state = state;
+    this.frame = frame;
+    this.threshold = threshold;
+  }
+
+  /**
+   * Returns the class of the encoded packet.
+   *
+   * @return the packet class
+   */
+  public @NonNull Class<?> packet() {
+    return this.packet;
+  }
+
+  /**
+   * Returns the {@link EnumConnectionState} the packet was
+   * encoded for.
+   *
+   * @return the connection state
+   */
+  public @NonNull EnumConnectionState state() {
+    return this.state;
+  }
+
+  /**
+   * Returns the number of bytes of the uncompressed packet.
+   *
+   * @return the number of bytes
+   */
+  public int size() {
+    return this.frame.readableBytes();
+  }
+
+  /**
+   * Returns the number of bytes held by this packet, including
+   * the compressed buffer if it has been compressed.
+   *
+   * @return the number of bytes held
+   */
+  public synchronized int bytes() {
+    return this.frame.readableBytes() + (this.compressed != null ? this.compressed.readableBytes() : 0);
+  }
+
+  /* package */ int threshold() {
+    return this.threshold;
+  }
+
+  /**
+   * Returns a retained duplicate of the encoded packet buffer,
+   * compressed if specified, which is released once written.
+   *
+   * @param compress whether the buffer should be compressed
+   * @return the retained buffer
+   */
+  public @NonNull ByteBuf retainedBuffer(final boolean compress) {
+    if(this.refCnt() <= 0) throw new IllegalStateException("Encoded packet has already been released");
+    if(!compress) return this.frame.retainedDuplicate();
+    synchronized(this) {
+      if(this.compressed == null) {
+        this.compressed = this.encoder.compress(this.allocator, this.frame, this.threshold);
+      }
+      return this.compressed.retainedDuplicate();
+    }
+  }
+
+  @Override
+  public @NonNull EncodedPacket retain() {
+    super.retain();
+    return this;
+  }
+
+  @Override
+  public @NonNull EncodedPacket touch(final Object hint) {
+    return this;
+  }
+
+  @Override
+  protected void deallocate() {
+    this.frame.release();
+    synchronized(this) {
+      if(this.compressed != null) {
+        this.compressed.release();
+        this.compressed = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Singleton;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.Packet;
+import net.minecraft.network.play.server.SPacketDisconnect;
+import net.minecraft.network.play.server.SPacketKeepAlive;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An opt-in outgoing flush coalescer, which holds back the flushes
+ * of a channel in the play state until the next server tick, or until
+ * a packet or byte threshold is reached.
+ *
+ * Packets of an immediate class, such as keep-alives, are flushed
+ * straight away along with any packets written before them. Channels
+ * in any other state are always flushed straight away, as the login
+ * relies on each packet being sent before the next is encoded.
+ */
+@Singleton
+public final class FlushCoalescer {
+  public static final String COALESCE_FLUSHES = "protocolcontrol.coalesceFlushes";
+  public static final String FLUSH_PACKETS = "protocolcontrol.flushPackets";
+  public static final String FLUSH_BYTES = "protocolcontrol.flushBytes";
+  private final Set<Handler> handlers = ConcurrentHashMap.newKeySet();
+  private final LongAdder requested = new LongAdder();
+  private final LongAdder performed = new LongAdder();
+  private volatile Set<Class<?>> immediate = ImmutableSet.of(SPacketKeepAlive.class, SPacketDisconnect.class);
+  private volatile boolean enabled = Boolean.getBoolean(FlushCoalescer.COALESCE_FLUSHES);
+  private volatile int packetThreshold = Integer.getInteger(FlushCoalescer.FLUSH_PACKETS, 64);
+  private volatile int byteThreshold = Integer.getInteger(FlushCoalescer.FLUSH_BYTES, 16384);
+
+  /**
+   * Returns {@code true} if flushes are coalesced for channels
+   * injected from now on.
+   *
+   * @return whether flushes are coalesced
+   */
+  public boolean enabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Sets whether flushes are coalesced for channels injected
+   * from now on.
+   *
+   * @param enabled whether flushes are coalesced
+   */
+  public void enabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Sets the number of written packets and the number of pending
+   * bytes at which a channel is flushed before the next tick.
+   *
+   * @param packets the packet threshold
+   * @param bytes the byte threshold
+   */
+  public void thresholds(final int packets, final int bytes) {
+    if(packets < 1 || bytes < 1) throw new IllegalArgumentException("Thresholds must be positive");
+    this.packetThreshold = packets;
+    this.byteThreshold = bytes;
+  }
+
+  /**
+   * Adds the specified packet class to the packets that are
+   * flushed immediately once written.
+   *
+   * @param packet the packet class
+   */
+  public synchronized void immediate(final @NonNull Class<? extends Packet<?>> packet) {
+    this.immediate = ImmutableSet.<Class<?>>builder().addAll(this.immediate).add(requireNonNull(packet, "packet")).build();
+  }
+
+  /**
+   * Returns the number of flushes requested on coalescing channels
+   * while packets were pending.
+   *
+   * @return the number of requested flushes
+   */
+  public long requested() {
+    return this.requested.sum();
+  }
+
+  /**
+   * Returns the number of flushes performed on coalescing channels.
+   *
+   * @return the number of performed flushes
+   */
+  public long performed() {
+    return this.performed.sum();
+  }
+
+  /**
+   * Returns the number of flushes saved by coalescing.
+   *
+   * @return the number of saved flushes
+   */
+  public long saved() {
+    return Math.max(0, this.requested() - this.performed());
+  }
+
+  /**
+   * Flushes every coalescing channel with packets held back,
+   * on the channel event loops. This is called once per tick.
+   */
+  public void tick() {
+    for(final Handler handler : this.handlers) {
+      handler.flushLater();
+    }
+  }
+
+  /**
+   * Flushes the specified {@link Channel} immediately on its event
+   * loop, including any packets held back by coalescing and any
+   * packets written but not yet flushed.
+   *
+   * @param channel the channel
+   */
+  public void flush(final @NonNull Channel channel) {
+    final ChannelHandlerContext context = requireNonNull(channel, "channel").pipeline().context(Handler.class);
+    if(context != null) {
+      ((Handler) context.handler()).flushImmediately();
+    } else {
+      channel.flush();
+    }
+  }
+
+  /**
+   * Returns a new {@link Handler} for a single channel.
+   *
+   * @return a new handler
+   */
+  public @NonNull Handler handler() {
+    return new Handler(this);
+  }
+
+  /**
+   * The outgoing handler of a single channel that holds back
+   * flushes for the {@link FlushCoalescer}.
+   */
+  public static final class Handler extends ChannelDuplexHandler {
+    private final FlushCoalescer coalescer;
+    private ChannelHandlerContext context;
+    private int pending = 0;
+    private volatile boolean flush = false;
+
+    /* package */ Handler(final @NonNull FlushCoalescer coalescer) {
+      this.coalescer = coalescer;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext context) {
+      this.context = context;
+      this.coalescer.handlers.add(this);
+    }
+
+    @Override
+    public void handlerRemoved(final ChannelHandlerContext context) {
+      this.coalescer.handlers.remove(this);
+      if(this.flush) this.flushNow(false);
+    }
+
+    @Override
+    public void channelInactive(final ChannelHandlerContext context) throws Exception {
+      this.coalescer.handlers.remove(this);
+      super.channelInactive(context);
+    }
+
+    @Override
+    public void write(final ChannelHandlerContext context, final Object message, final ChannelPromise promise) {
+      final boolean immediate = this.coalescer.immediate.contains(message.getClass());
+      context.write(message, promise);
+      this.pending++;
+      if(immediate || this.exceeded()) this.flushNow(false);
+    }
+
+    @Override
+    public void flush(final ChannelHandlerContext context) {
+      if(this.pending == 0) return;
+      this.coalescer.requested.increment();
+      if(this.exceeded() || PacketEncoder.state(context.channel()) != EnumConnectionState.PLAY) {
+        this.flushNow(false);
+      } else {
+        this.flush = true;
+      }
+    }
+
+    @Override
+    public void close(final ChannelHandlerContext context, final ChannelPromise promise) throws Exception {
+      if(this.flush) this.flushNow(false);
+      super.close(context, promise);
+    }
+
+    /* package */ void flushLater() {
+      if(this.flush) this.context.executor().execute(() -> this.flushNow(false));
+    }
+
+    /* package */ void flushImmediately() {
+      if(this.context.executor().inEventLoop()) {
+        this.flushNow(true);
+      } else {
+        this.context.executor().execute(() -> this.flushNow(true));
+      }
+    }
+
+    private void flushNow(final boolean force) {
+      if(!force && this.pending == 0 && !this.flush) return;
+      this.pending = 0;
+      this.flush = false;
+      this.coalescer.performed.increment();
+      this.context.flush();
+    }
+
+    private boolean exceeded() {
+      if(this.pending >= this.coalescer.packetThreshold) return true;
+      final ChannelOutboundBuffer buffer = this.context.channel().unsafe().outboundBuffer();
+      return buffer != null && buffer.totalPendingWriteBytes() >= this.coalescer.byteThreshold;
+    }
+  }
+}
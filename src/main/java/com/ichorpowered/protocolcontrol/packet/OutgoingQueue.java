@@ -0,0 +1,235 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.metrics.ProtocolMetrics;
+import com.ichorpowered.protocolcontrol.metrics.TrafficCounter;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A writability-aware outgoing packet queue of a single channel.
+ *
+ * Packets are written straight through while the channel is
+ * writable. Once it is not, packets are queued in the order they
+ * were written, as the protocol relies on that order, until the
+ * channel becomes writable again. {@link PacketPriority#CRITICAL}
+ * packets are then written first, along with everything queued
+ * before them. When the queue is over its budget, queued and new
+ * {@link PacketPriority#DROPPABLE} packets are dropped.
+ *
+ * {@link EncodedPacket}s are queued the same way, and are written
+ * and flushed from the {@link ChannelProfile#encoder()} context once
+ * they are reached, releasing them afterwards.
+ *
+ * The queue is only accessed from the channel event loop, besides
+ * {@link #depth()} and {@link #dropped()}.
+ */
+public final class OutgoingQueue {
+  private final PacketPriorities priorities;
+  private final ProtocolMetrics metrics;
+  private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+  private @Nullable ChannelHandlerContext context;
+  private @Nullable ChannelProfile profile;
+  private @Nullable TrafficCounter counter;
+  private int droppable = 0;
+  private int critical = 0;
+  private volatile int depth = 0;
+  private volatile long dropped = 0;
+
+  public OutgoingQueue(final @NonNull PacketPriorities priorities, final @NonNull ProtocolMetrics metrics) {
+    this.priorities = priorities;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the number of packets currently queued.
+   *
+   * @return the queue depth
+   */
+  public int depth() {
+    return this.depth;
+  }
+
+  /**
+   * Returns the number of droppable packets dropped by this queue.
+   *
+   * @return the number of dropped packets
+   */
+  public long dropped() {
+    return this.dropped;
+  }
+
+  /* package */ void bind(final @NonNull ChannelHandlerContext context, final @NonNull ChannelProfile profile,
+                         final @Nullable TrafficCounter counter) {
+    this.context = context;
+    this.profile = profile;
+    this.counter = counter;
+  }
+
+  /**
+   * Writes the specified message from the bound context if the
+   * channel is writable and nothing is queued, otherwise queues it.
+   *
+   * @param message the message
+   * @param promise the write promise
+   */
+  public void write(final @NonNull Object message, final @NonNull ChannelPromise promise) {
+    final ChannelHandlerContext context = this.context;
+    if(context == null) {
+      promise.channel().write(message, promise);
+      return;
+    }
+    if(this.queue.isEmpty() && context.channel().isWritable()) {
+      this.write(context, message, promise);
+      return;
+    }
+    final PacketPriority priority = this.priorities.priority(OutgoingQueue.type(message));
+    if(priority == PacketPriority.DROPPABLE && this.queue.size() >= this.priorities.budget()) {
+      this.drop(message, promise);
+      return;
+    }
+    this.queue.add(new Entry(message, promise, priority));
+    if(priority == PacketPriority.DROPPABLE) this.droppable++;
+    if(priority == PacketPriority.CRITICAL) this.critical++;
+    if(this.queue.size() > this.priorities.budget() && this.droppable > 0) this.trim();
+    this.depth = this.queue.size();
+    if(priority == PacketPriority.CRITICAL || context.channel().isWritable()) this.drain();
+  }
+
+  /**
+   * Writes the queued packets while the channel is writable, or
+   * up to the last critical packet, and then flushes the channel.
+   * Droppable packets ahead of a critical packet are dropped when
+   * the channel is not writable.
+   */
+  public void drain() {
+    final ChannelHandlerContext context = this.context;
+    if(context == null || this.queue.isEmpty()) return;
+    boolean written = false;
+    while(!this.queue.isEmpty() && (this.critical > 0 || context.channel().isWritable())) {
+      final Entry entry = this.queue.poll();
+      if(entry.priority == PacketPriority.DROPPABLE) {
+        this.droppable--;
+        if(!context.channel().isWritable()) {
+          this.drop(entry.message, entry.promise);
+          continue;
+        }
+      }
+      if(entry.priority == PacketPriority.CRITICAL) this.critical--;
+      this.write(context, entry.message, entry.promise);
+      written = true;
+    }
+    this.depth = this.queue.size();
+    if(written) context.flush();
+  }
+
+  /**
+   * Releases every queued packet, failing their promises.
+   */
+  public void clear() {
+    Entry entry;
+    while((entry = this.queue.poll()) != null) {
+      ReferenceCountUtil.release(entry.message);
+      if(!entry.promise.isVoid()) entry.promise.tryFailure(new ClosedChannelException());
+    }
+    this.droppable = 0;
+    this.critical = 0;
+    this.depth = 0;
+  }
+
+  private void write(final @NonNull ChannelHandlerContext context, final @NonNull Object message,
+                     final @NonNull ChannelPromise promise) {
+    if(!this.metrics.enabled()) {
+      this.write0(context, message, promise);
+      return;
+    }
+    final TrafficCounter counter = this.counter;
+    if(counter != null) counter.take();
+    final Class<?> packet = OutgoingQueue.type(message);
+    this.write0(context, message, promise);
+    this.metrics.packet(PacketDirection.OUTGOING, packet, counter != null ? counter.take() : 0);
+  }
+
+  private void write0(final @NonNull ChannelHandlerContext context, final @NonNull Object message,
+                      final @NonNull ChannelPromise promise) {
+    if(!(message instanceof EncodedPacket)) {
+      context.write(message, promise);
+      return;
+    }
+    final EncodedPacket packet = (EncodedPacket) message;
+    try {
+      final ChannelHandlerContext encoder = this.profile != null ? this.profile.encoder() : null;
+      if(encoder == null) {
+        promise.tryFailure(new ClosedChannelException());
+        return;
+      }
+      encoder.writeAndFlush(packet.retainedBuffer(PacketEncoder.COMPRESSOR.equals(encoder.name())), promise);
+    } finally {
+      packet.release();
+    }
+  }
+
+  private static @NonNull Class<?> type(final @NonNull Object message) {
+    return message instanceof EncodedPacket ? ((EncodedPacket) message).packet() : message.getClass();
+  }
+
+  private void trim() {
+    final Iterator<Entry> iterator = this.queue.iterator();
+    while(iterator.hasNext() && this.droppable > 0 && this.queue.size() > this.priorities.budget()) {
+      final Entry entry = iterator.next();
+      if(entry.priority != PacketPriority.DROPPABLE) continue;
+      iterator.remove();
+      this.droppable--;
+      this.drop(entry.message, entry.promise);
+    }
+  }
+
+  private void drop(final @NonNull Object message, final @NonNull ChannelPromise promise) {
+    ReferenceCountUtil.release(message);
+    promise.trySuccess();
+    this.dropped++;
+  }
+
+  private static final class Entry {
+    private final Object message;
+    private final ChannelPromise promise;
+    private final PacketPriority priority;
+
+    /* package */ Entry(final @NonNull Object message, final @NonNull ChannelPromise promise,
+                        final @NonNull PacketPriority priority) {
+      this.message = message;
+      this.promise = promise;
+      this.priority = priority;
+    }
+  }
+}
@@ -0,0 +1,235 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Provides direct access to the fields of a packet, by the
+ * slot of the field in its {@link PacketRemapper.Structure}.
+ *
+ * Accessors are generated for each structure by the
+ * {@link AccessorFactory}.
+ */
+public interface PacketAccessor {
+  /**
+   * Returns the element at the specified slot of the
+   * specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  @Nullable Object get(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the element at the specified slot of the specified
+   * packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void set(@NonNull Object packet, int slot, @Nullable Object value) throws Throwable;
+
+  /**
+   * Returns the {@code boolean} element at the specified slot of
+   * the specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the boolean element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  boolean getBoolean(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the {@code boolean} element at the specified slot of the
+   * specified packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the boolean element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void setBoolean(@NonNull Object packet, int slot, boolean value) throws Throwable;
+
+  /**
+   * Returns the {@code byte} element at the specified slot of
+   * the specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the byte element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  byte getByte(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the {@code byte} element at the specified slot of the
+   * specified packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the byte element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void setByte(@NonNull Object packet, int slot, byte value) throws Throwable;
+
+  /**
+   * Returns the {@code short} element at the specified slot of
+   * the specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the short element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  short getShort(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the {@code short} element at the specified slot of the
+   * specified packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the short element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void setShort(@NonNull Object packet, int slot, short value) throws Throwable;
+
+  /**
+   * Returns the {@code char} element at the specified slot of
+   * the specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the char element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  char getChar(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the {@code char} element at the specified slot of the
+   * specified packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the char element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void setChar(@NonNull Object packet, int slot, char value) throws Throwable;
+
+  /**
+   * Returns the {@code int} element at the specified slot of
+   * the specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the int element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  int getInt(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the {@code int} element at the specified slot of the
+   * specified packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the int element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void setInt(@NonNull Object packet, int slot, int value) throws Throwable;
+
+  /**
+   * Returns the {@code long} element at the specified slot of
+   * the specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the long element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  long getLong(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the {@code long} element at the specified slot of the
+   * specified packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the long element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void setLong(@NonNull Object packet, int slot, long value) throws Throwable;
+
+  /**
+   * Returns the {@code float} element at the specified slot of
+   * the specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the float element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  float getFloat(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the {@code float} element at the specified slot of the
+   * specified packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the float element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void setFloat(@NonNull Object packet, int slot, float value) throws Throwable;
+
+  /**
+   * Returns the {@code double} element at the specified slot of
+   * the specified packet.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @return the double element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  double getDouble(@NonNull Object packet, int slot) throws Throwable;
+
+  /**
+   * Sets the {@code double} element at the specified slot of the
+   * specified packet to the specified value.
+   *
+   * @param packet the packet
+   * @param slot the field slot
+   * @param value the double element
+   * @throws Throwable exceptions attempting to access the field
+   */
+  void setDouble(@NonNull Object packet, int slot, double value) throws Throwable;
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.netty.util.IllegalReferenceCountException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import net.minecraft.network.Packet;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A cache of frozen {@link EncodedPacket}s keyed by an id chosen
+ * by the caller, for packets that are sent unchanged many times.
+ *
+ * The cache is bounded by the number of bytes held by the packets,
+ * evicting the least recently used packets first. Packets returned
+ * by the cache are retained, and must be released once they have
+ * been sent.
+ */
+@Singleton
+public final class PacketCache {
+  public static final String CACHE_SIZE = "protocolcontrol.packetCacheSize";
+  private final PacketEncoder encoder;
+  private final Cache<String, EncodedPacket> packets;
+
+  @Inject
+  public PacketCache(final PacketEncoder encoder) {
+    this(encoder, Long.getLong(PacketCache.CACHE_SIZE, 8L * 1024 * 1024));
+  }
+
+  public PacketCache(final @NonNull PacketEncoder encoder, final long maximumBytes) {
+    this.encoder = requireNonNull(encoder, "encoder");
+    this.packets = CacheBuilder.newBuilder()
+      .concurrencyLevel(1)
+      .maximumWeight(maximumBytes)
+      .weigher((String id, EncodedPacket packet) -> packet.bytes())
+      .removalListener((RemovalNotification<String, EncodedPacket> notification) -> {
+        final EncodedPacket packet = notification.getValue();
+        if(packet != null) packet.release();
+      })
+      .build();
+  }
+
+  /**
+   * Returns the retained {@link EncodedPacket} with the specified
+   * id, if it is cached.
+   *
+   * @param id the packet id
+   * @return the retained packet, if present
+   */
+  public @Nullable EncodedPacket get(final @NonNull String id) {
+    final EncodedPacket packet = this.packets.getIfPresent(requireNonNull(id, "id"));
+    return packet != null ? PacketCache.retain(packet) : null;
+  }
+
+  /**
+   * Returns the retained {@link EncodedPacket} with the specified id,
+   * freezing the packet from the specified {@link Callable} if it is
+   * not cached.
+   *
+   * @param id the packet id
+   * @param packet the packet to freeze if absent
+   * @return the retained packet
+   * @throws Exception exceptions attempting to create or encode
+   *                   the packet
+   */
+  public @NonNull EncodedPacket get(final @NonNull String id, final @NonNull Callable<? extends Packet<?>> packet) throws Exception {
+    requireNonNull(id, "id");
+    requireNonNull(packet, "packet");
+    final EncodedPacket encoded;
+    try {
+      encoded = this.packets.get(id, () -> this.encoder.freeze(packet.call()));
+    } catch(ExecutionException | UncheckedExecutionException | ExecutionError exception) {
+      final Throwable cause = exception.getCause();
+      if(cause instanceof Exception) throw (Exception) cause;
+      if(cause instanceof Error) throw (Error) cause;
+      throw exception;
+    }
+    final EncodedPacket retained = PacketCache.retain(encoded);
+    // The packet was evicted and released in between, or is too large to be cached.
+    return retained != null ? retained : this.encoder.freeze(packet.call());
+  }
+
+  /**
+   * Freezes the specified {@link Packet} and caches it with the
+   * specified id, replacing any packet with the same id.
+   *
+   * @param id the packet id
+   * @param packet the packet
+   * @throws Exception exceptions attempting to encode the packet
+   */
+  public void put(final @NonNull String id, final @NonNull Packet<?> packet) throws Exception {
+    this.packets.put(requireNonNull(id, "id"), this.encoder.freeze(requireNonNull(packet, "packet")));
+  }
+
+  /**
+   * Removes the packet with the specified id from the cache.
+   *
+   * @param id the packet id
+   */
+  public void invalidate(final @NonNull String id) {
+    this.packets.invalidate(requireNonNull(id, "id"));
+  }
+
+  /**
+   * Removes every packet from the cache.
+   */
+  public void invalidateAll() {
+    this.packets.invalidateAll();
+  }
+
+  /**
+   * Returns the number of cached packets.
+   *
+   * @return the number of packets
+   */
+  public long size() {
+    return this.packets.size();
+  }
+
+  private static @Nullable EncodedPacket retain(final @NonNull EncodedPacket packet) {
+    try {
+      return packet.retain();
+    } catch(IllegalReferenceCountException exception) {
+      return null;
+    }
+  }
+}
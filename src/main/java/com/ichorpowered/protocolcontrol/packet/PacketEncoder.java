@@ -0,0 +1,191 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import java.io.IOException;
+import java.util.function.IntSupplier;
+import java.util.zip.Deflater;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.EnumPacketDirection;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.server.MinecraftServer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.spongepowered.api.Game;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A packet encoder that serializes outgoing packets into an
+ * {@link EncodedPacket} the same way the channel encoder and
+ * compressor would, so they can be written to many channels
+ * while only being encoded once.
+ */
+@Singleton
+public final class PacketEncoder {
+  public static final String ENCODER = "encoder";
+  public static final String COMPRESSOR = "compress";
+  private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(Deflater::new);
+  private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[8192]);
+  private final IntSupplier threshold;
+
+  @Inject
+  public PacketEncoder(final Game game) {
+    this(() -> ((MinecraftServer) game.getServer()).getNetworkCompressionThreshold());
+  }
+
+  public PacketEncoder(final @NonNull IntSupplier threshold) {
+    this.threshold = requireNonNull(threshold, "threshold");
+  }
+
+  /**
+   * Returns the compression threshold used by the server,
+   * or {@code -1} if compression is disabled.
+   *
+   * @return the compression threshold
+   */
+  public int threshold() {
+    return this.threshold.getAsInt();
+  }
+
+  /**
+   * Returns the {@link EnumConnectionState} of the specified
+   * {@link Channel}, if it has one.
+   *
+   * @param channel the channel
+   * @return the connection state, if present
+   */
+  public static @Nullable EnumConnectionState state(final @NonNull Channel channel) {
+    return requireNonNull(channel, "channel").attr(NetworkManager.PROTOCOL_ATTRIBUTE_KEY).get();
+  }
+
+  /**
+   * Returns the {@link ChannelHandlerContext} an encoded packet
+   * is written from on the specified {@link Channel}, which is
+   * the compressor if the channel compresses packets, otherwise
+   * the encoder.
+   *
+   * @param channel the channel
+   * @return the context, if present
+   */
+  public static @Nullable ChannelHandlerContext context(final @NonNull Channel channel) {
+    final ChannelHandlerContext compressor = requireNonNull(channel, "channel").pipeline().context(PacketEncoder.COMPRESSOR);
+    return compressor != null ? compressor : channel.pipeline().context(PacketEncoder.ENCODER);
+  }
+
+  /**
+   * Encodes the specified outgoing {@link Packet} for channels in
+   * the specified {@link EnumConnectionState}.
+   *
+   * @param allocator the buffer allocator
+   * @param state the connection state
+   * @param packet the packet
+   * @return the encoded packet
+   * @throws Exception exceptions attempting to encode the packet
+   */
+  public @NonNull EncodedPacket encode(final @NonNull ByteBufAllocator allocator, final @NonNull EnumConnectionState state,
+                                       final @NonNull Packet<?> packet) throws Exception {
+    requireNonNull(allocator, "allocator");
+    requireNonNull(state, "state");
+    requireNonNull(packet, "packet");
+    final Integer id = state.getPacketId(EnumPacketDirection.CLIENTBOUND, packet);
+    if(id == null) throw new IOException("Unable to encode unregistered packet");
+    final ByteBuf buffer = allocator.buffer();
+    try {
+      final PacketBuffer packetBuffer = new PacketBuffer(buffer);
+      packetBuffer.writeVarInt(id);
+      packet.writePacketData(packetBuffer);
+      return new EncodedPacket(this, allocator, packet.getClass(), state, buffer, this.threshold());
+    } catch(Throwable throwable) {
+      buffer.release();
+      throw throwable;
+    }
+  }
+
+  /**
+   * Freezes the specified outgoing {@link Packet} into an unpooled
+   * {@link EncodedPacket} for the connection state it belongs to,
+   * compressed ahead of time if the server compresses packets, so
+   * it can be kept and sent many times.
+   *
+   * @param packet the packet
+   * @return the frozen packet
+   * @throws Exception exceptions attempting to encode the packet
+   */
+  public @NonNull EncodedPacket freeze(final @NonNull Packet<?> packet) throws Exception {
+    final EnumConnectionState state = EnumConnectionState.getFromPacket(requireNonNull(packet, "packet"));
+    if(state == null) throw new IOException("Unable to encode unregistered packet");
+    final EncodedPacket encoded = this.encode(UnpooledByteBufAllocator.DEFAULT, state, packet);
+    if(encoded.threshold() >= 0) {
+      try {
+        encoded.retainedBuffer(true).release();
+      } catch(Throwable throwable) {
+        encoded.release();
+        throw throwable;
+      }
+    }
+    return encoded;
+  }
+
+  /* package */ @NonNull ByteBuf compress(final @NonNull ByteBufAllocator allocator, final @NonNull ByteBuf frame,
+                                          final int threshold) {
+    final int length = frame.readableBytes();
+    final ByteBuf buffer = allocator.buffer();
+    final PacketBuffer packetBuffer = new PacketBuffer(buffer);
+    if(length < threshold) {
+      packetBuffer.writeVarInt(0);
+      packetBuffer.writeBytes(frame, frame.readerIndex(), length);
+      return buffer;
+    }
+    final byte[] input = new byte[length];
+    frame.getBytes(frame.readerIndex(), input);
+    packetBuffer.writeVarInt(length);
+    final Deflater deflater = this.deflaters.get();
+    final byte[] output = this.buffers.get();
+    try {
+      deflater.setInput(input, 0, length);
+      deflater.finish();
+      while(!deflater.finished()) {
+        final int count = deflater.deflate(output);
+        packetBuffer.writeBytes(output, 0, count);
+      }
+    } catch(Throwable throwable) {
+      buffer.release();
+      throw throwable;
+    } finally {
+      deflater.reset();
+    }
+    return buffer;
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.ichorpowered.protocolcontrol.ProtocolInjector;
+import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.Packet;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A firewall for incoming packet frames, deciding whether to drop
+ * a frame from its packet id before it is decoded.
+ *
+ * Rules are held in a table for each {@link EnumConnectionState}
+ * indexed by packet id, and are given the frame after the packet
+ * id, limited to the first {@link #prefix()} bytes, without it
+ * being copied.
+ */
+@Singleton
+public final class PacketFirewall {
+  public static final String FIREWALL_PREFIX = "protocolcontrol.firewallPrefix";
+  private static final String DECOMPRESSOR = "decompress";
+  private static final Rule[][] EMPTY = new Rule[EnumConnectionState.values().length][0];
+  private final PacketRegistry registry;
+  private final LongAdder dropped = new LongAdder();
+  private volatile Rule[][] rules = PacketFirewall.EMPTY;
+  private volatile int prefix = Integer.getInteger(PacketFirewall.FIREWALL_PREFIX, 64);
+
+  @Inject
+  public PacketFirewall(final PacketRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Returns the {@link Rule} for the specified packet id in the
+   * specified {@link EnumConnectionState}, or {@code null} if
+   * there is none.
+   *
+   * @param state the connection state
+   * @param id the packet id
+   * @return the rule
+   */
+  public @Nullable Rule rule(final @NonNull EnumConnectionState state, final int id) {
+    final Rule[] rules = this.rules[requireNonNull(state, "state").ordinal()];
+    return id >= 0 && id < rules.length ? rules[id] : null;
+  }
+
+  /**
+   * Sets the {@link Rule} for the specified packet id in the
+   * specified {@link EnumConnectionState}, or removes it if the
+   * rule is {@code null}.
+   *
+   * @param state the connection state
+   * @param id the packet id
+   * @param rule the rule
+   */
+  public synchronized void rule(final @NonNull EnumConnectionState state, final int id, final @Nullable Rule rule) {
+    requireNonNull(state, "state");
+    if(id < 0) throw new IllegalArgumentException("Packet id must not be negative");
+    final Rule[][] rules = this.rules.clone();
+    final Rule[] stateRules = rules[state.ordinal()];
+    if(rule == null && id >= stateRules.length) return;
+    rules[state.ordinal()] = Arrays.copyOf(stateRules, Math.max(stateRules.length, id + 1));
+    rules[state.ordinal()][id] = rule;
+    this.rules = rules;
+  }
+
+  /**
+   * Sets the {@link Rule} for the specified incoming packet class,
+   * or removes it if the rule is {@code null}.
+   *
+   * @param packet the packet class
+   * @param rule the rule
+   */
+  public void rule(final @NonNull Class<? extends Packet<?>> packet, final @Nullable Rule rule) {
+    requireNonNull(packet, "packet");
+    final EnumConnectionState state = this.registry.state(packet);
+    final int id = state != null ? this.registry.id(state, PacketDirection.INCOMING, packet) : -1;
+    if(id < 0) throw new IllegalArgumentException("Packet " + packet.getName() + " is not an incoming packet");
+    this.rule(state, id, rule);
+  }
+
+  /**
+   * Drops every frame of the specified incoming packet class.
+   *
+   * @param packet the packet class
+   */
+  public void drop(final @NonNull Class<? extends Packet<?>> packet) {
+    this.rule(packet, Rule.DROP);
+  }
+
+  /**
+   * Removes every {@link Rule}.
+   */
+  public synchronized void clear() {
+    this.rules = PacketFirewall.EMPTY;
+  }
+
+  /**
+   * Returns the maximum number of bytes after the packet id
+   * given to a {@link Rule}.
+   *
+   * @return the frame prefix
+   */
+  public int prefix() {
+    return this.prefix;
+  }
+
+  /**
+   * Sets the maximum number of bytes after the packet id given
+   * to a {@link Rule}.
+   *
+   * @param prefix the frame prefix
+   */
+  public void prefix(final int prefix) {
+    if(prefix < 0) throw new IllegalArgumentException("Prefix must not be negative");
+    this.prefix = prefix;
+  }
+
+  /**
+   * Returns the number of frames dropped.
+   *
+   * @return the number of dropped frames
+   */
+  public long dropped() {
+    return this.dropped.sum();
+  }
+
+  /**
+   * Returns a new {@link Handler} filtering the incoming frames
+   * of the specified {@link ChannelProfile}.
+   *
+   * @param profile the channel profile
+   * @return a firewall handler
+   */
+  public @NonNull Handler handler(final @NonNull ChannelProfile profile) {
+    return new Handler(requireNonNull(profile, "profile"), false);
+  }
+
+  /**
+   * Decides whether an incoming frame is passed to the decoder.
+   */
+  @FunctionalInterface
+  public interface Rule {
+    /**
+     * A rule dropping every frame.
+     */
+    Rule DROP = (profile, id, payload) -> false;
+
+    /**
+     * Returns {@code true} if the frame should be passed to the
+     * decoder, or {@code false} if it should be dropped.
+     *
+     * The payload starts after the packet id and must not be
+     * modified or retained.
+     *
+     * @param profile the channel profile
+     * @param id the packet id
+     * @param payload the frame payload prefix
+     * @return whether the frame is passed
+     */
+    boolean allow(@NonNull ChannelProfile profile, int id, @NonNull ByteBuf payload);
+  }
+
+  /**
+   * A handler applying the {@link Rule}s of the firewall to the
+   * frames of a channel, placed after the decompressor once
+   * compression is enabled.
+   */
+  public final class Handler extends ChannelInboundHandlerAdapter {
+    private final ChannelProfile profile;
+    private boolean placed;
+
+    /* package */ Handler(final @NonNull ChannelProfile profile, final boolean placed) {
+      this.profile = profile;
+      this.placed = placed;
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext context, final Object message) throws Exception {
+      if(!this.placed) {
+        if(context.pipeline().context(PacketFirewall.DECOMPRESSOR) != null) {
+          // Compression was enabled, so frames have to be inspected after the decompressor.
+          context.pipeline().remove(this);
+          context.pipeline().addAfter(PacketFirewall.DECOMPRESSOR, ProtocolInjector.FIREWALL_HANDLER, new Handler(this.profile, true));
+          context.fireChannelRead(message);
+          return;
+        }
+        // Compression is only enabled during the login, so it is no longer looked for once playing.
+        this.placed = PacketEncoder.state(context.channel()) == EnumConnectionState.PLAY;
+      }
+      if(message instanceof ByteBuf && !this.allow(context, (ByteBuf) message)) {
+        ((ByteBuf) message).release();
+        PacketFirewall.this.dropped.increment();
+        return;
+      }
+      context.fireChannelRead(message);
+    }
+
+    private boolean allow(final @NonNull ChannelHandlerContext context, final @NonNull ByteBuf buffer) {
+      final EnumConnectionState state = PacketEncoder.state(context.channel());
+      if(state == null) return true;
+      final Rule[] rules = PacketFirewall.this.rules[state.ordinal()];
+      if(rules.length == 0) return true;
+      final int readerIndex = buffer.readerIndex();
+      final int writerIndex = buffer.writerIndex();
+      int id = 0;
+      int index = readerIndex;
+      for(int shift = 0; ; shift += 7) {
+        if(index >= writerIndex || shift >= 35) return true; // Leave malformed frames to the decoder.
+        final byte value = buffer.getByte(index++);
+        id |= (value & 0x7F) << shift;
+        if((value & 0x80) == 0) break;
+      }
+      final Rule rule = id >= 0 && id < rules.length ? rules[id] : null;
+      if(rule == null) return true;
+      try {
+        buffer.setIndex(index, Math.min(writerIndex, index + PacketFirewall.this.prefix));
+        return rule.allow(this.profile, id, buffer);
+      } finally {
+        buffer.setIndex(readerIndex, writerIndex);
+      }
+    }
+  }
+}
@@ -28,7 +28,11 @@ import com.ichorpowered.protocolcontrol.ProtocolChannel;
 import com.ichorpowered.protocolcontrol.ProtocolEvent;
 import com.ichorpowered.protocolcontrol.ProtocolInjector;
 import com.ichorpowered.protocolcontrol.channel.ChannelProfile;
+import com.ichorpowered.protocolcontrol.event.DispatchMode;
 import com.ichorpowered.protocolcontrol.event.PacketEvent;
+import com.ichorpowered.protocolcontrol.metrics.ProtocolMetrics;
+import com.ichorpowered.protocolcontrol.metrics.StallDetector;
+import com.ichorpowered.protocolcontrol.metrics.TrafficCounter;
 import com.ichorpowered.protocolcontrol.util.Exceptions;
 import com.mojang.authlib.GameProfile;
 import io.netty.channel.ChannelDuplexHandler;
@@ -37,10 +41,17 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import net.minecraft.network.EnumConnectionState;
 import net.minecraft.network.Packet;
 import net.minecraft.network.login.server.SPacketLoginSuccess;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 
 import static java.util.Objects.requireNonNull;
@@ -51,19 +62,36 @@ public final class PacketHandler extends ChannelDuplexHandler {
   private final ProtocolChannel channels;
   private final ProtocolEvent events;
   private final PacketRemapper remapper;
+  private final FlushCoalescer coalescer;
+  private final PacketFirewall firewall;
+  private final ProtocolMetrics metrics;
+  private final StallDetector stalls;
   private final ChannelProfile profile;
+  private final OutgoingQueue queue;
+  private @Nullable TrafficCounter incomingCounter;
+  private @Nullable TrafficCounter outgoingCounter;
   private boolean injected = false;
 
   public PacketHandler(final @NonNull Logger logger,
                        final @NonNull ProtocolChannel channels,
                        final @NonNull ProtocolEvent events,
                        final @NonNull PacketRemapper remapper,
+                       final @NonNull FlushCoalescer coalescer,
+                       final @NonNull PacketPriorities priorities,
+                       final @NonNull PacketFirewall firewall,
+                       final @NonNull ProtocolMetrics metrics,
+                       final @NonNull StallDetector stalls,
                        final @NonNull ChannelProfile profile) {
     this.logger = requireNonNull(logger, "logger");
     this.channels = requireNonNull(channels, "channels");
     this.events = requireNonNull(events, "events");
     this.remapper = requireNonNull(remapper, "remapper");
+    this.coalescer = requireNonNull(coalescer, "coalescer");
+    this.firewall = requireNonNull(firewall, "firewall");
+    this.metrics = requireNonNull(metrics, "metrics");
+    this.stalls = requireNonNull(stalls, "stalls");
     this.profile = requireNonNull(profile, "profile");
+    this.queue = new OutgoingQueue(requireNonNull(priorities, "priorities"), metrics);
   }
 
   public @NonNull Logger logger() {
@@ -74,20 +102,50 @@ public final class PacketHandler extends ChannelDuplexHandler {
     return this.events;
   }
 
+  public @NonNull PacketRemapper remapper() {
+    return this.remapper;
+  }
+
   public @NonNull ChannelProfile profile() {
     return this.profile;
   }
 
+  public @NonNull OutgoingQueue queue() {
+    return this.queue;
+  }
+
+  public @NonNull ProtocolMetrics metrics() {
+    return this.metrics;
+  }
+
+  public @NonNull StallDetector stalls() {
+    return this.stalls;
+  }
+
   @Override
   public void channelActive(final ChannelHandlerContext context) throws Exception {
     Exceptions.catchingReport(
       () -> {
         if(!this.injected) {
+          if(this.metrics.enabled()) {
+            this.incomingCounter = new TrafficCounter();
+            this.outgoingCounter = new TrafficCounter();
+            context.pipeline().addBefore("decoder", ProtocolInjector.INCOMING_COUNTER, this.incomingCounter);
+            context.pipeline().addBefore("encoder", ProtocolInjector.OUTGOING_COUNTER, this.outgoingCounter);
+          }
           final Incoming incoming = new Incoming(this);
           final Outgoing outgoing = new Outgoing(this);
           context.pipeline().remove(this).addBefore("packet_handler", ProtocolInjector.CHANNEL_HANDLER, this);
+          context.pipeline().addBefore("decoder", ProtocolInjector.FIREWALL_HANDLER, this.firewall.handler(this.profile));
           context.pipeline().addAfter("decoder", ProtocolInjector.INCOMING_HANDLER, incoming);
           context.pipeline().addAfter("packet_handler", ProtocolInjector.OUTGOING_HANDLER, outgoing);
+          if(this.coalescer.enabled()) {
+            context.pipeline().addBefore(ProtocolInjector.OUTGOING_HANDLER, ProtocolInjector.FLUSH_HANDLER, this.coalescer.handler());
+          }
+          this.queue.bind(context.pipeline().context(outgoing), this.profile, this.outgoingCounter);
+          this.profile.contexts(context.pipeline().context(incoming), context.pipeline().context(outgoing));
+          this.profile.queue(this.queue);
+          this.stalls.probe(context.channel().eventLoop());
           this.remapper.structure(SPacketLoginSuccess.class); // Prepare the structure early.
           this.profile.active(true);
           this.injected = true;
@@ -140,6 +198,7 @@ public final class PacketHandler extends ChannelDuplexHandler {
           final UUID player = this.profile.player();
           if(player != null) this.channels.remove(player);
           this.profile.active(false);
+          this.queue.clear();
         }
       },
       this.logger,
@@ -153,42 +212,137 @@ public final class PacketHandler extends ChannelDuplexHandler {
     super.channelInactive(context);
   }
 
+  @Override
+  public void channelWritabilityChanged(final ChannelHandlerContext context) throws Exception {
+    if(context.channel().isWritable()) this.queue.drain();
+    super.channelWritabilityChanged(context);
+  }
+
   protected static class Incoming extends ChannelInboundHandlerAdapter {
     private final Logger logger;
     private final ProtocolEvent event;
     private final ChannelProfile profile;
+    private final ProtocolMetrics metrics;
+    private final StallDetector stalls;
+    private final @Nullable TrafficCounter counter;
+    private final Queue<Object> pending = new ArrayDeque<>();
+    private boolean suspended = false;
+    private boolean autoRead = false;
 
     public Incoming(final @NonNull PacketHandler handler) {
       this.logger = handler.logger();
       this.event = handler.event();
       this.profile = handler.profile();
+      this.metrics = handler.metrics();
+      this.stalls = handler.stalls();
+      this.counter = handler.incomingCounter;
     }
 
     @Override
     public void channelRead(final ChannelHandlerContext context, final Object message) throws Exception {
+      final long start = this.stalls.enabled() ? System.nanoTime() : 0L;
+      try {
+        if(this.metrics.enabled() && message instanceof Packet) {
+          this.metrics.packet(PacketDirection.INCOMING, message.getClass(), this.counter != null ? this.counter.take() : 0);
+        }
+        if(this.suspended) {
+          this.pending.add(message);
+          return;
+        }
+        this.read(context, message);
+      } finally {
+        if(start != 0L) this.stalls.record(context.channel().eventLoop(), System.nanoTime() - start, message, this.profile);
+      }
+    }
+
+    private void read(final @NonNull ChannelHandlerContext context, final @NonNull Object message) {
       Object transformedMessage = message;
       try {
-        if(transformedMessage instanceof Packet && this.event.hasSubscribers()) {
-          final PacketEvent<?> packetEvent = new PacketEvent<>(this.profile, PacketDirection.INCOMING, (Packet<?>) transformedMessage);
-          this.event.fire(packetEvent).get();
+        final PacketEvent<?> packetEvent = transformedMessage instanceof Packet
+          ? this.event.event(this.profile, PacketDirection.INCOMING, (Packet<?>) transformedMessage)
+          : null;
+        if(packetEvent != null) {
+          final long start = this.metrics.enabled() ? System.nanoTime() : 0L;
+          if(this.event.dispatches(packetEvent, DispatchMode.EXECUTOR)) {
+            if(this.event.asyncMutation() && PacketEncoder.state(context.channel()) == EnumConnectionState.PLAY) {
+              this.suspend(context, packetEvent, message);
+              return;
+            }
+            this.event.fire(packetEvent).get();
+          } else {
+            this.event.fireInline(packetEvent);
+          }
+          if(start != 0L) this.metrics.dispatch(PacketDirection.INCOMING, System.nanoTime() - start);
           if(packetEvent.cancel()) return;
           transformedMessage = packetEvent.packet();
         }
       } catch(Throwable throwable) {
-        Exceptions.catchingReport(
-          throwable,
-          this.logger,
-          PacketHandler.class,
-          "packet",
-          "Encountered a minor exception attempting to handle an incoming packet",
-          report -> report.category("packet_read")
-            .detail("profile", this.profile)
-            .detail("player", this.profile.player())
-            .detail("context", context.name())
-            .detail("message", message)
-        );
+        this.report(context, throwable, message);
+      }
+      context.fireChannelRead(transformedMessage);
+    }
+
+    private void suspend(final @NonNull ChannelHandlerContext context, final @NonNull PacketEvent<?> packetEvent,
+                         final @NonNull Object message) {
+      final CompletableFuture<?> future = this.event.fire(packetEvent); // Fire first, so a rejected dispatch leaves the channel reading.
+      this.suspended = true;
+      if(context.channel().config().isAutoRead()) {
+        context.channel().config().setAutoRead(false);
+        this.autoRead = true;
+      }
+      future.whenComplete((result, throwable) -> {
+        try {
+          context.executor().execute(() -> this.resume(context, packetEvent, message, throwable));
+        } catch(RejectedExecutionException exception) {
+          this.abandon(context, message); // The event loop is shutting down, so the held reads can never be handled.
+        }
+      });
+    }
+
+    private void resume(final @NonNull ChannelHandlerContext context, final @NonNull PacketEvent<?> packetEvent,
+                        final @NonNull Object message, final @Nullable Throwable throwable) {
+      if(throwable != null) {
+        this.report(context, throwable, message);
+        context.fireChannelRead(message);
+      } else if(!packetEvent.cancel()) {
+        context.fireChannelRead(packetEvent.packet());
+      }
+      this.suspended = false;
+      while(!this.suspended && !this.pending.isEmpty()) {
+        this.read(context, this.pending.poll());
+      }
+      if(!this.suspended && this.autoRead) {
+        this.autoRead = false;
+        context.channel().config().setAutoRead(true);
       }
-      super.channelRead(context, transformedMessage);
+    }
+
+    private void abandon(final @NonNull ChannelHandlerContext context, final @NonNull Object message) {
+      this.suspended = false;
+      ReferenceCountUtil.release(message);
+      while(!this.pending.isEmpty()) {
+        ReferenceCountUtil.release(this.pending.poll());
+      }
+      if(this.autoRead) {
+        this.autoRead = false;
+        context.channel().config().setAutoRead(true);
+      }
+    }
+
+    private void report(final @NonNull ChannelHandlerContext context, final @NonNull Throwable throwable,
+                        final @NonNull Object message) {
+      Exceptions.catchingReport(
+        throwable,
+        this.logger,
+        PacketHandler.class,
+        "packet",
+        "Encountered a minor exception attempting to handle an incoming packet",
+        report -> report.category("packet_read")
+          .detail("profile", this.profile)
+          .detail("player", this.profile.player())
+          .detail("context", context.name())
+          .detail("message", message)
+      );
     }
   }
 
@@ -196,38 +350,139 @@ public final class PacketHandler extends ChannelDuplexHandler {
     private final Logger logger;
     private final ProtocolEvent event;
     private final ChannelProfile profile;
+    private final OutgoingQueue queue;
+    private final ProtocolMetrics metrics;
+    private final StallDetector stalls;
+    private final Queue<PendingWrite> pending = new ArrayDeque<>();
+    private boolean suspended = false;
+    private boolean flush = false;
 
     public Outgoing(final @NonNull PacketHandler handler) {
       this.logger = handler.logger();
       this.event = handler.event();
       this.profile = handler.profile();
+      this.queue = handler.queue();
+      this.metrics = handler.metrics();
+      this.stalls = handler.stalls();
     }
 
     @Override
     public void write(final ChannelHandlerContext context, final Object message, final ChannelPromise promise) throws Exception {
+      final long start = this.stalls.enabled() ? System.nanoTime() : 0L;
+      try {
+        if(this.suspended) {
+          this.pending.add(new PendingWrite(message, promise));
+          return;
+        }
+        this.write0(context, message, promise);
+      } finally {
+        if(start != 0L) this.stalls.record(context.channel().eventLoop(), System.nanoTime() - start, message, this.profile);
+      }
+    }
+
+    @Override
+    public void flush(final ChannelHandlerContext context) throws Exception {
+      if(this.suspended) this.flush = true;
+      super.flush(context);
+    }
+
+    private void write0(final @NonNull ChannelHandlerContext context, final @NonNull Object message,
+                        final @NonNull ChannelPromise promise) {
       Object transformedMessage = message;
       try {
-        if(transformedMessage instanceof Packet && this.event.hasSubscribers()) {
-          final PacketEvent<?> packetEvent = new PacketEvent<>(this.profile, PacketDirection.OUTGOING, (Packet<?>) transformedMessage);
-          this.event.fire(packetEvent).get();
+        final PacketEvent<?> packetEvent = transformedMessage instanceof Packet
+          ? this.event.event(this.profile, PacketDirection.OUTGOING, (Packet<?>) transformedMessage)
+          : null;
+        if(packetEvent != null) {
+          final long start = this.metrics.enabled() ? System.nanoTime() : 0L;
+          if(this.event.dispatches(packetEvent, DispatchMode.EXECUTOR)) {
+            if(this.event.asyncMutation() && PacketEncoder.state(context.channel()) == EnumConnectionState.PLAY) {
+              this.suspend(context, packetEvent, message, promise);
+              return;
+            }
+            this.event.fire(packetEvent).get();
+          } else {
+            this.event.fireInline(packetEvent);
+          }
+          if(start != 0L) this.metrics.dispatch(PacketDirection.OUTGOING, System.nanoTime() - start);
           if(packetEvent.cancel()) return;
           transformedMessage = packetEvent.packet();
         }
       } catch(Throwable throwable) {
-        Exceptions.catchingReport(
-          throwable,
-          this.logger,
-          PacketHandler.class,
-          "packet",
-          "Encountered a minor exception attempting to handle an outgoing packet",
-          report -> report.category("packet_write")
-            .detail("profile", this.profile)
-            .detail("player", this.profile.player())
-            .detail("context", context.name())
-            .detail("message", message)
-        );
+        this.report(context, throwable, message);
+      }
+      this.queue.write(transformedMessage, promise);
+    }
+
+    private void suspend(final @NonNull ChannelHandlerContext context, final @NonNull PacketEvent<?> packetEvent,
+                         final @NonNull Object message, final @NonNull ChannelPromise promise) {
+      final CompletableFuture<?> future = this.event.fire(packetEvent); // Fire first, so a rejected dispatch leaves the channel writing.
+      this.suspended = true;
+      future.whenComplete((result, throwable) -> {
+        try {
+          context.executor().execute(() -> this.resume(context, packetEvent, message, promise, throwable));
+        } catch(RejectedExecutionException exception) {
+          this.abandon(message, promise, exception); // The event loop is shutting down, so the held writes can never be sent.
+        }
+      });
+    }
+
+    private void resume(final @NonNull ChannelHandlerContext context, final @NonNull PacketEvent<?> packetEvent,
+                        final @NonNull Object message, final @NonNull ChannelPromise promise,
+                        final @Nullable Throwable throwable) {
+      if(throwable != null) {
+        this.report(context, throwable, message);
+        this.queue.write(message, promise);
+      } else if(!packetEvent.cancel()) {
+        this.queue.write(packetEvent.packet(), promise);
+      }
+      this.suspended = false;
+      while(!this.suspended && !this.pending.isEmpty()) {
+        final PendingWrite write = this.pending.poll();
+        this.write0(context, write.message, write.promise);
+      }
+      if(!this.suspended && this.flush) {
+        this.flush = false;
+        context.flush();
+      }
+    }
+
+    private void abandon(final @NonNull Object message, final @NonNull ChannelPromise promise, final @NonNull Throwable cause) {
+      this.suspended = false;
+      this.flush = false;
+      ReferenceCountUtil.release(message);
+      promise.tryFailure(cause);
+      while(!this.pending.isEmpty()) {
+        final PendingWrite write = this.pending.poll();
+        ReferenceCountUtil.release(write.message);
+        write.promise.tryFailure(cause);
+      }
+    }
+
+    private void report(final @NonNull ChannelHandlerContext context, final @NonNull Throwable throwable,
+                        final @NonNull Object message) {
+      Exceptions.catchingReport(
+        throwable,
+        this.logger,
+        PacketHandler.class,
+        "packet",
+        "Encountered a minor exception attempting to handle an outgoing packet",
+        report -> report.category("packet_write")
+          .detail("profile", this.profile)
+          .detail("player", this.profile.player())
+          .detail("context", context.name())
+          .detail("message", message)
+      );
+    }
+
+    private static final class PendingWrite {
+      private final Object message;
+      private final ChannelPromise promise;
+
+      /* package */ PendingWrite(final @NonNull Object message, final @NonNull ChannelPromise promise) {
+        this.message = message;
+        this.promise = promise;
       }
-      super.write(context, transformedMessage, promise);
     }
   }
 }
@@ -0,0 +1,110 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Singleton;
+import java.util.Map;
+import net.minecraft.network.Packet;
+import net.minecraft.network.play.server.SPacketChunkData;
+import net.minecraft.network.play.server.SPacketCustomSound;
+import net.minecraft.network.play.server.SPacketDisconnect;
+import net.minecraft.network.play.server.SPacketEntityHeadLook;
+import net.minecraft.network.play.server.SPacketKeepAlive;
+import net.minecraft.network.play.server.SPacketParticles;
+import net.minecraft.network.play.server.SPacketPlayerPosLook;
+import net.minecraft.network.play.server.SPacketSoundEffect;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The {@link PacketPriority} of each outgoing packet class and the
+ * budget of the {@link OutgoingQueue} of each channel.
+ */
+@Singleton
+public final class PacketPriorities {
+  public static final String QUEUE_BUDGET = "protocolcontrol.queueBudget";
+  private volatile Map<Class<?>, PacketPriority> priorities = ImmutableMap.<Class<?>, PacketPriority>builder()
+    .put(SPacketKeepAlive.class, PacketPriority.CRITICAL)
+    .put(SPacketDisconnect.class, PacketPriority.CRITICAL)
+    .put(SPacketPlayerPosLook.class, PacketPriority.CRITICAL)
+    .put(SPacketChunkData.class, PacketPriority.CRITICAL)
+    .put(SPacketParticles.class, PacketPriority.DROPPABLE)
+    .put(SPacketSoundEffect.class, PacketPriority.DROPPABLE)
+    .put(SPacketCustomSound.class, PacketPriority.DROPPABLE)
+    .put(SPacketEntityHeadLook.class, PacketPriority.DROPPABLE)
+    .build();
+  private volatile int budget = Integer.getInteger(PacketPriorities.QUEUE_BUDGET, 1024);
+
+  /**
+   * Returns the {@link PacketPriority} of the specified packet
+   * class, which is {@link PacketPriority#NORMAL} by default.
+   *
+   * @param packet the packet class
+   * @return the packet priority
+   */
+  public @NonNull PacketPriority priority(final @NonNull Class<?> packet) {
+    final PacketPriority priority = this.priorities.get(packet);
+    return priority != null ? priority : PacketPriority.NORMAL;
+  }
+
+  /**
+   * Sets the {@link PacketPriority} of the specified packet class.
+   *
+   * @param packet the packet class
+   * @param priority the packet priority
+   */
+  public synchronized void priority(final @NonNull Class<? extends Packet<?>> packet, final @NonNull PacketPriority priority) {
+    requireNonNull(packet, "packet");
+    requireNonNull(priority, "priority");
+    final ImmutableMap.Builder<Class<?>, PacketPriority> builder = ImmutableMap.builder();
+    for(final Map.Entry<Class<?>, PacketPriority> entry : this.priorities.entrySet()) {
+      if(entry.getKey() != packet) builder.put(entry);
+    }
+    this.priorities = builder.put(packet, priority).build();
+  }
+
+  /**
+   * Returns the number of packets a channel queues while it is
+   * not writable, before droppable packets are dropped.
+   *
+   * @return the queue budget
+   */
+  public int budget() {
+    return this.budget;
+  }
+
+  /**
+   * Sets the number of packets a channel queues while it is
+   * not writable, before droppable packets are dropped.
+   *
+   * @param budget the queue budget
+   */
+  public void budget(final int budget) {
+    if(budget < 0) throw new IllegalArgumentException("Budget must not be negative");
+    this.budget = budget;
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.packet;
+
+import com.google.common.collect.BiMap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.ichorpowered.protocolcontrol.util.Exceptions;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.network.EnumConnectionState;
+import net.minecraft.network.EnumPacketDirection;
+import net.minecraft.network.Packet;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A view of the packets registered to each {@link EnumConnectionState}.
+ */
+@Singleton
+public final class PacketRegistry {
+  private final Logger logger;
+  private final Map<Class<?>, Integer> indexes = Maps.newHashMap();
+  private final ClassValue<Integer> lookup = new ClassValue<Integer>() {
+    @Override
+    protected Integer computeValue(final Class<?> type) {
+      return PacketRegistry.this.assign(type);
+    }
+  };
+  private volatile Set<Class<? extends Packet<?>>> packets;
+
+  @Inject
+  public PacketRegistry(final Logger logger) {
+    this.logger = logger;
+  }
+
+  /**
+   * Returns every packet class registered to any
+   * {@link EnumConnectionState}.
+   *
+   * @return the registered packet classes
+   */
+  public @NonNull Set<Class<? extends Packet<?>>> packets() {
+    Set<Class<? extends Packet<?>>> packets = this.packets;
+    if(packets == null) {
+      final ImmutableSet.Builder<Class<? extends Packet<?>>> builder = ImmutableSet.builder();
+      for(final EnumConnectionState state : EnumConnectionState.values()) {
+        for(final BiMap<Integer, Class<? extends Packet<?>>> directionPackets : this.directions(state).values()) {
+          builder.addAll(directionPackets.values());
+        }
+      }
+      this.packets = packets = builder.build();
+    }
+    return packets;
+  }
+
+  /**
+   * Returns the dense index of the specified packet class.
+   *
+   * Registered packet classes are indexed in the order of
+   * {@link #packets()}, and any other class is given the next
+   * index the first time it is looked up.
+   *
+   * @param packet the packet class
+   * @return the packet index
+   */
+  public int index(final @NonNull Class<?> packet) {
+    return this.lookup.get(requireNonNull(packet, "packet"));
+  }
+
+  /**
+   * Returns the number of packet classes given an index.
+   *
+   * @return the number of indexes
+   */
+  public synchronized int indexes() {
+    if(this.indexes.isEmpty()) this.assign(null);
+    return this.indexes.size();
+  }
+
+  /**
+   * Returns the {@link EnumConnectionState} the specified packet
+   * class is registered to, or {@code null} if it is not
+   * registered.
+   *
+   * @param packet the packet class
+   * @return the connection state
+   */
+  public @Nullable EnumConnectionState state(final @NonNull Class<?> packet) {
+    requireNonNull(packet, "packet");
+    for(final EnumConnectionState state : EnumConnectionState.values()) {
+      for(final BiMap<Integer, Class<? extends Packet<?>>> directionPackets : this.directions(state).values()) {
+        if(directionPackets.containsValue(packet)) return state;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the id of the specified packet class in the specified
+   * {@link EnumConnectionState} and {@link PacketDirection}, or
+   * {@code -1} if it is not registered.
+   *
+   * @param state the connection state
+   * @param direction the packet direction
+   * @param packet the packet class
+   * @return the packet id
+   */
+  public int id(final @NonNull EnumConnectionState state, final @NonNull PacketDirection direction, final @NonNull Class<?> packet) {
+    requireNonNull(state, "state");
+    requireNonNull(packet, "packet");
+    final BiMap<Integer, Class<? extends Packet<?>>> directionPackets = this.directions(state).get(PacketRegistry.direction(direction));
+    if(directionPackets == null) return -1;
+    final Integer id = directionPackets.inverse().get(packet);
+    return id != null ? id : -1;
+  }
+
+  private static @NonNull EnumPacketDirection direction(final @NonNull PacketDirection direction) {
+    return requireNonNull(direction, "direction") == PacketDirection.INCOMING ? EnumPacketDirection.SERVERBOUND : EnumPacketDirection.CLIENTBOUND;
+  }
+
+  private synchronized int assign(final @Nullable Class<?> packet) {
+    if(this.indexes.isEmpty()) {
+      for(final Class<?> registered : this.packets()) {
+        this.indexes.put(registered, this.indexes.size());
+      }
+    }
+    if(packet == null) return -1;
+    final Integer index = this.indexes.get(packet);
+    if(index != null) return index;
+    final int next = this.indexes.size();
+    this.indexes.put(packet, next);
+    return next;
+  }
+
+  @SuppressWarnings({"unchecked", "JavaReflectionMemberAccess"})
+  private @NonNull Map<EnumPacketDirection, BiMap<Integer, Class<? extends Packet<?>>>> directions(final @NonNull EnumConnectionState state) {
+    try {
+      final Field directionsField = EnumConnectionState.class.getDeclaredField("field_179247_h");
+      return (Map<EnumPacketDirection, BiMap<Integer, Class<? extends Packet<?>>>>) directionsField.get(state);
+    } catch(Throwable throwable) {
+      Exceptions.catchingReport(
+        throwable,
+        this.logger,
+        PacketRegistry.class,
+        "registry",
+        "Encountered a major exception attempting to access the packet registry",
+        report -> report.category("registry_directions")
+          .detail("state", state)
+      );
+      return ImmutableMap.of();
+    }
+  }
+}
@@ -24,18 +24,32 @@
  */
 package com.ichorpowered.protocolcontrol.packet;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.ichorpowered.protocolcontrol.util.Exceptions;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ReferenceCountUtil;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import net.minecraft.network.Packet;
+import net.minecraft.network.PacketBuffer;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
@@ -49,13 +63,16 @@ import static java.util.Objects.requireNonNull;
  *
  * This packet remapper stores mapped packets into a
  * {@link Structure} to allow efficient reuse of reflection
- * and {@link MethodHandle} lookups.
+ * and {@link MethodHandle} lookups, with a generated
+ * {@link PacketAccessor} to access the fields directly.
  */
 @Singleton
 @SuppressWarnings("unchecked")
 public final class PacketRemapper {
-  private final Map<Class<?>, Structure<?>> structures = Maps.newHashMap();
+  private final ConcurrentMap<Class<?>, Structure<?>> structures = Maps.newConcurrentMap();
   private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+  private final AccessorFactory accessors = new AccessorFactory(PacketRemapper.class.getClassLoader());
+  private final ThreadLocal<Wrapped<Object>> views = ThreadLocal.withInitial(Wrapped::new);
   private final Logger logger;
 
   @Inject
@@ -71,8 +88,21 @@ public final class PacketRemapper {
    * @return the packet structure
    */
   public <T> @NonNull Structure<T> structure(final @NonNull Class<?> packet) {
-    return (Structure<T>) this.structures.computeIfAbsent(requireNonNull(packet, "packet"), key ->
-      Structure.generate(this.logger, this.lookup, key));
+    final Structure<?> structure = this.structures.get(requireNonNull(packet, "packet"));
+    if(structure != null) return (Structure<T>) structure;
+    return (Structure<T>) this.structures.computeIfAbsent(packet, key ->
+      Structure.generate(this.logger, this.lookup, this.accessors, key));
+  }
+
+  /**
+   * Prepares the {@link Structure} of each of the specified packet
+   * classes in parallel, so the cost of generating them is not paid
+   * the first time a packet is handled.
+   *
+   * @param packets the packet classes
+   */
+  public void prepare(final @NonNull Collection<? extends Class<?>> packets) {
+    requireNonNull(packets, "packets").parallelStream().forEach(this::structure);
   }
 
   /**
@@ -86,6 +116,137 @@ public final class PacketRemapper {
     return new Wrapped<>(requireNonNull(packet, "packet"), this.structure(packet.getClass()));
   }
 
+  /**
+   * Returns a {@link Wrapped} view of the specified {@code T} packet,
+   * reused by the calling thread.
+   *
+   * The view is rebound to another packet by the next call to this
+   * method on the same thread, so it should not be kept once the
+   * packet has been handled. The {@link Structure} is only looked up
+   * again when the packet class differs from the previous packet.
+   *
+   * @param packet the packet
+   * @param <T> the packet type
+   * @return the reused packet wrapper
+   */
+  public <T> @NonNull Wrapped<T> view(final @NonNull T packet) {
+    requireNonNull(packet, "packet");
+    final Wrapped<Object> view = this.views.get();
+    if(view.structure == null || view.structure.packet() != packet.getClass()) {
+      view.structure = this.structure(packet.getClass());
+    }
+    view.packet = packet;
+    return (Wrapped<T>) view;
+  }
+
+  /**
+   * Returns a shallow copy of the specified {@code T} packet.
+   *
+   * @param packet the packet
+   * @param <T> the packet type
+   * @return the packet copy
+   * @throws Throwable exceptions attempting to create or copy
+   *                   the packet
+   */
+  public <T> @NonNull T copy(final @NonNull T packet) throws Throwable {
+    return this.copy(packet, CopyMode.SHALLOW);
+  }
+
+  /**
+   * Returns a copy of the specified {@code T} packet, created with
+   * the cached constructor and the field handles of its
+   * {@link Structure}.
+   *
+   * @param packet the packet
+   * @param mode the copy mode
+   * @param <T> the packet type
+   * @return the packet copy
+   * @throws Throwable exceptions attempting to create or copy
+   *                   the packet
+   */
+  public <T> @NonNull T copy(final @NonNull T packet, final @NonNull CopyMode mode) throws Throwable {
+    requireNonNull(packet, "packet");
+    requireNonNull(mode, "mode");
+    final Structure<T> structure = this.structure(packet.getClass());
+    final T copy = structure.allocate();
+    for(final Handle handle : structure.handles) {
+      if(mode == CopyMode.DEEP && !handle.type().isPrimitive()) {
+        final Object value = structure.accessor().get(packet, handle.slot());
+        structure.accessor().set(copy, handle.slot(), this.copyValue(handle.type(), value));
+      } else {
+        handle.copier().invokeExact((Object) packet, (Object) copy);
+      }
+    }
+    return copy;
+  }
+
+  /**
+   * Releases the buffers held by the fields of the specified
+   * {@code T} packet and the packets nested in it.
+   *
+   * @param packet the packet
+   * @param <T> the packet type
+   * @throws Throwable exceptions attempting to read the packet
+   */
+  public <T> void release(final @NonNull T packet) throws Throwable {
+    requireNonNull(packet, "packet");
+    final Structure<T> structure = this.structure(packet.getClass());
+    for(final Handle handle : structure.handles) {
+      if(handle.type().isPrimitive()) continue;
+      final Object value = structure.accessor().get(packet, handle.slot());
+      if(value instanceof Packet) {
+        this.release(value);
+      } else if(value instanceof ByteBuf) {
+        ReferenceCountUtil.safeRelease(value);
+      }
+    }
+  }
+
+  private @Nullable Object copyValue(final @NonNull Class<?> type, final @Nullable Object value) throws Throwable {
+    if(value == null) return null;
+    final Object copy;
+    if(value instanceof Packet) {
+      copy = this.copy(value, CopyMode.DEEP);
+    } else if(value instanceof PacketBuffer) {
+      copy = new PacketBuffer(((PacketBuffer) value).retainedDuplicate());
+    } else if(value instanceof ByteBuf) {
+      copy = ((ByteBuf) value).retainedDuplicate();
+    } else if(value.getClass().isArray()) {
+      final Class<?> component = value.getClass().getComponentType();
+      final int length = Array.getLength(value);
+      copy = Array.newInstance(component, length);
+      if(component.isPrimitive()) {
+        System.arraycopy(value, 0, copy, 0, length);
+      } else {
+        for(int i = 0; i < length; i++) {
+          Array.set(copy, i, this.copyValue(component, Array.get(value, i)));
+        }
+      }
+    } else if(value instanceof List) {
+      final List<Object> list = Lists.newArrayListWithCapacity(((List<?>) value).size());
+      for(final Object element : (List<?>) value) {
+        list.add(this.copyValue(Object.class, element));
+      }
+      copy = list;
+    } else if(value instanceof Set) {
+      final Set<Object> set = Sets.newLinkedHashSetWithExpectedSize(((Set<?>) value).size());
+      for(final Object element : (Set<?>) value) {
+        set.add(this.copyValue(Object.class, element));
+      }
+      copy = set;
+    } else if(value instanceof Map) {
+      final Map<Object, Object> map = Maps.newLinkedHashMapWithExpectedSize(((Map<?, ?>) value).size());
+      for(final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        map.put(entry.getKey(), this.copyValue(Object.class, entry.getValue()));
+      }
+      copy = map;
+    } else {
+      return value;
+    }
+    // Share the value when the copy does not fit the field.
+    return type.isInstance(copy) ? copy : value;
+  }
+
   /**
    * A wrapper containing the {@code T} packet and the specific
    * {@link Structure} this packet uses.
@@ -93,8 +254,11 @@ public final class PacketRemapper {
    * @param <T> the packet type
    */
   public static final class Wrapped<T> {
-    private final T packet;
-    private final Structure<T> structure;
+    private T packet;
+    private Structure<T> structure;
+
+    /* package */ Wrapped() {
+    }
 
     /* package */ Wrapped(final @NonNull T packet, final @NonNull Structure<T> structure) {
       this.packet = requireNonNull(packet, "packet");
@@ -123,9 +287,7 @@ public final class PacketRemapper {
      *                   the field or the fields element
      */
     public <E> @Nullable E get(final @NonNull Class<E> type, final int index) throws Throwable {
-      final MethodHandle handle = this.structure.getter(requireNonNull(type, "type"), index);
-      if(handle == null) throw new IllegalStateException("Unable to locate method handle");
-      final Object field = handle.invoke(this.packet());
+      final Object field = this.structure.accessor().get(this.packet, this.slot(requireNonNull(type, "type"), index));
       return field != null ? type.cast(field) : null;
     }
 
@@ -141,9 +303,230 @@ public final class PacketRemapper {
      * @throws Throwable exceptions attempting to locate the field
      */
     public <E> void set(final @NonNull Class<E> type, final int index, final @Nullable E value) throws Throwable {
-      final MethodHandle handle = this.structure.setter(requireNonNull(type, "type"), index);
-      if(handle == null) throw new IllegalStateException("Unable to locate method handle");
-      handle.invoke(this.packet(), value);
+      this.structure.accessor().set(this.packet, this.slot(requireNonNull(type, "type"), index), value);
+    }
+
+    /**
+     * Returns the element {@code E} at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @param <E> the element type
+     * @return the element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public <E> @Nullable E get(final @NonNull Slot<E> slot) throws Throwable {
+      final Object field = this.structure.accessor().get(this.packet, this.slot(slot));
+      return field != null ? slot.type.cast(field) : null;
+    }
+
+    /**
+     * Sets the element {@code E} at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the element
+     * @param <E> the element type
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public <E> void set(final @NonNull Slot<E> slot, final @Nullable E value) throws Throwable {
+      this.structure.accessor().set(this.packet, this.slot(slot), value);
+    }
+
+    /**
+     * Returns the {@code boolean} element at the specified index
+     * position of the fields in the packet class.
+     *
+     * @param index the element index
+     * @return the boolean element
+     * @throws Throwable exceptions attempting to locate or parse
+     *                   the field or the fields element
+     */
+    public boolean getBoolean(final int index) throws Throwable {
+      return this.structure.accessor().getBoolean(this.packet, this.slot(boolean.class, index));
+    }
+
+    /**
+     * Sets the {@code boolean} element at the specified index position
+     * of the fields in the packet class to the specified value.
+     *
+     * @param index the element index
+     * @param value the boolean element
+     * @throws Throwable exceptions attempting to locate the field
+     */
+    public void setBoolean(final int index, final boolean value) throws Throwable {
+      this.structure.accessor().setBoolean(this.packet, this.slot(boolean.class, index), value);
+    }
+
+    /**
+     * Returns the {@code boolean} element at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @return the boolean element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public boolean getBoolean(final @NonNull Slot<Boolean> slot) throws Throwable {
+      return this.structure.accessor().getBoolean(this.packet, this.slot(slot));
+    }
+
+    /**
+     * Sets the {@code boolean} element at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the boolean element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public void setBoolean(final @NonNull Slot<Boolean> slot, final boolean value) throws Throwable {
+      this.structure.accessor().setBoolean(this.packet, this.slot(slot), value);
+    }
+
+    /**
+     * Returns the {@code byte} element at the specified index
+     * position of the fields in the packet class.
+     *
+     * @param index the element index
+     * @return the byte element
+     * @throws Throwable exceptions attempting to locate or parse
+     *                   the field or the fields element
+     */
+    public byte getByte(final int index) throws Throwable {
+      return this.structure.accessor().getByte(this.packet, this.slot(byte.class, index));
+    }
+
+    /**
+     * Sets the {@code byte} element at the specified index position
+     * of the fields in the packet class to the specified value.
+     *
+     * @param index the element index
+     * @param value the byte element
+     * @throws Throwable exceptions attempting to locate the field
+     */
+    public void setByte(final int index, final byte value) throws Throwable {
+      this.structure.accessor().setByte(this.packet, this.slot(byte.class, index), value);
+    }
+
+    /**
+     * Returns the {@code byte} element at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @return the byte element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public byte getByte(final @NonNull Slot<Byte> slot) throws Throwable {
+      return this.structure.accessor().getByte(this.packet, this.slot(slot));
+    }
+
+    /**
+     * Sets the {@code byte} element at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the byte element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public void setByte(final @NonNull Slot<Byte> slot, final byte value) throws Throwable {
+      this.structure.accessor().setByte(this.packet, this.slot(slot), value);
+    }
+
+    /**
+     * Returns the {@code short} element at the specified index
+     * position of the fields in the packet class.
+     *
+     * @param index the element index
+     * @return the short element
+     * @throws Throwable exceptions attempting to locate or parse
+     *                   the field or the fields element
+     */
+    public short getShort(final int index) throws Throwable {
+      return this.structure.accessor().getShort(this.packet, this.slot(short.class, index));
+    }
+
+    /**
+     * Sets the {@code short} element at the specified index position
+     * of the fields in the packet class to the specified value.
+     *
+     * @param index the element index
+     * @param value the short element
+     * @throws Throwable exceptions attempting to locate the field
+     */
+    public void setShort(final int index, final short value) throws Throwable {
+      this.structure.accessor().setShort(this.packet, this.slot(short.class, index), value);
+    }
+
+    /**
+     * Returns the {@code short} element at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @return the short element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public short getShort(final @NonNull Slot<Short> slot) throws Throwable {
+      return this.structure.accessor().getShort(this.packet, this.slot(slot));
+    }
+
+    /**
+     * Sets the {@code short} element at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the short element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public void setShort(final @NonNull Slot<Short> slot, final short value) throws Throwable {
+      this.structure.accessor().setShort(this.packet, this.slot(slot), value);
+    }
+
+    /**
+     * Returns the {@code char} element at the specified index
+     * position of the fields in the packet class.
+     *
+     * @param index the element index
+     * @return the char element
+     * @throws Throwable exceptions attempting to locate or parse
+     *                   the field or the fields element
+     */
+    public char getChar(final int index) throws Throwable {
+      return this.structure.accessor().getChar(this.packet, this.slot(char.class, index));
+    }
+
+    /**
+     * Sets the {@code char} element at the specified index position
+     * of the fields in the packet class to the specified value.
+     *
+     * @param index the element index
+     * @param value the char element
+     * @throws Throwable exceptions attempting to locate the field
+     */
+    public void setChar(final int index, final char value) throws Throwable {
+      this.structure.accessor().setChar(this.packet, this.slot(char.class, index), value);
+    }
+
+    /**
+     * Returns the {@code char} element at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @return the char element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public char getChar(final @NonNull Slot<Character> slot) throws Throwable {
+      return this.structure.accessor().getChar(this.packet, this.slot(slot));
+    }
+
+    /**
+     * Sets the {@code char} element at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the char element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public void setChar(final @NonNull Slot<Character> slot, final char value) throws Throwable {
+      this.structure.accessor().setChar(this.packet, this.slot(slot), value);
     }
 
     /**
@@ -156,10 +539,7 @@ public final class PacketRemapper {
      *                   the field or the fields element
      */
     public int getInt(final int index) throws Throwable {
-      final MethodHandle handle = this.structure.getter(int.class, index);
-      if(handle == null) throw new IllegalStateException("Unable to locate method handle");
-      final Object field = handle.invoke(this.packet());
-      return field != null ? (int) field : 0;
+      return this.structure.accessor().getInt(this.packet, this.slot(int.class, index));
     }
 
     /**
@@ -171,9 +551,129 @@ public final class PacketRemapper {
      * @throws Throwable exceptions attempting to locate the field
      */
     public void setInt(final int index, final int value) throws Throwable {
-      final MethodHandle handle = this.structure.setter(int.class, index);
-      if(handle == null) throw new IllegalStateException("Unable to locate method handle");
-      handle.invoke(this.packet(), value);
+      this.structure.accessor().setInt(this.packet, this.slot(int.class, index), value);
+    }
+
+    /**
+     * Returns the {@code int} element at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @return the int element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public int getInt(final @NonNull Slot<Integer> slot) throws Throwable {
+      return this.structure.accessor().getInt(this.packet, this.slot(slot));
+    }
+
+    /**
+     * Sets the {@code int} element at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the int element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public void setInt(final @NonNull Slot<Integer> slot, final int value) throws Throwable {
+      this.structure.accessor().setInt(this.packet, this.slot(slot), value);
+    }
+
+    /**
+     * Returns the {@code long} element at the specified index
+     * position of the fields in the packet class.
+     *
+     * @param index the element index
+     * @return the long element
+     * @throws Throwable exceptions attempting to locate or parse
+     *                   the field or the fields element
+     */
+    public long getLong(final int index) throws Throwable {
+      return this.structure.accessor().getLong(this.packet, this.slot(long.class, index));
+    }
+
+    /**
+     * Sets the {@code long} element at the specified index position
+     * of the fields in the packet class to the specified value.
+     *
+     * @param index the element index
+     * @param value the long element
+     * @throws Throwable exceptions attempting to locate the field
+     */
+    public void setLong(final int index, final long value) throws Throwable {
+      this.structure.accessor().setLong(this.packet, this.slot(long.class, index), value);
+    }
+
+    /**
+     * Returns the {@code long} element at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @return the long element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public long getLong(final @NonNull Slot<Long> slot) throws Throwable {
+      return this.structure.accessor().getLong(this.packet, this.slot(slot));
+    }
+
+    /**
+     * Sets the {@code long} element at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the long element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public void setLong(final @NonNull Slot<Long> slot, final long value) throws Throwable {
+      this.structure.accessor().setLong(this.packet, this.slot(slot), value);
+    }
+
+    /**
+     * Returns the {@code float} element at the specified index
+     * position of the fields in the packet class.
+     *
+     * @param index the element index
+     * @return the float element
+     * @throws Throwable exceptions attempting to locate or parse
+     *                   the field or the fields element
+     */
+    public float getFloat(final int index) throws Throwable {
+      return this.structure.accessor().getFloat(this.packet, this.slot(float.class, index));
+    }
+
+    /**
+     * Sets the {@code float} element at the specified index position
+     * of the fields in the packet class to the specified value.
+     *
+     * @param index the element index
+     * @param value the float element
+     * @throws Throwable exceptions attempting to locate the field
+     */
+    public void setFloat(final int index, final float value) throws Throwable {
+      this.structure.accessor().setFloat(this.packet, this.slot(float.class, index), value);
+    }
+
+    /**
+     * Returns the {@code float} element at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @return the float element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public float getFloat(final @NonNull Slot<Float> slot) throws Throwable {
+      return this.structure.accessor().getFloat(this.packet, this.slot(slot));
+    }
+
+    /**
+     * Sets the {@code float} element at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the float element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public void setFloat(final @NonNull Slot<Float> slot, final float value) throws Throwable {
+      this.structure.accessor().setFloat(this.packet, this.slot(slot), value);
     }
 
     /**
@@ -186,10 +686,7 @@ public final class PacketRemapper {
      *                   the field or the fields element
      */
     public double getDouble(final int index) throws Throwable {
-      final MethodHandle handle = this.structure.getter(double.class, index);
-      if(handle == null) throw new IllegalStateException("Unable to locate method handle");
-      final Object field = handle.invoke(this.packet());
-      return field != null ? (double) field : 0D;
+      return this.structure.accessor().getDouble(this.packet, this.slot(double.class, index));
     }
 
     /**
@@ -201,9 +698,42 @@ public final class PacketRemapper {
      * @throws Throwable exceptions attempting to locate the field
      */
     public void setDouble(final int index, final double value) throws Throwable {
-      final MethodHandle handle = this.structure.setter(double.class, index);
-      if(handle == null) throw new IllegalStateException("Unable to locate method handle");
-      handle.invoke(this.packet(), value);
+      this.structure.accessor().setDouble(this.packet, this.slot(double.class, index), value);
+    }
+
+    /**
+     * Returns the {@code double} element at the specified resolved
+     * {@link Slot} of the packet.
+     *
+     * @param slot the resolved slot
+     * @return the double element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public double getDouble(final @NonNull Slot<Double> slot) throws Throwable {
+      return this.structure.accessor().getDouble(this.packet, this.slot(slot));
+    }
+
+    /**
+     * Sets the {@code double} element at the specified resolved
+     * {@link Slot} of the packet to the specified value.
+     *
+     * @param slot the resolved slot
+     * @param value the double element
+     * @throws Throwable exceptions attempting to access the field
+     */
+    public void setDouble(final @NonNull Slot<Double> slot, final double value) throws Throwable {
+      this.structure.accessor().setDouble(this.packet, this.slot(slot), value);
+    }
+
+    private int slot(final @NonNull Class<?> type, final int index) {
+      final int slot = this.structure.slot(type, index);
+      if(slot < 0) throw new IllegalStateException("Unable to locate method handle");
+      return slot;
+    }
+
+    private int slot(final @NonNull Slot<?> slot) {
+      if(requireNonNull(slot, "slot").packet != this.structure.packet()) throw new IllegalArgumentException("Slot belongs to another packet");
+      return slot.slot;
     }
   }
 
@@ -216,14 +746,14 @@ public final class PacketRemapper {
    */
   public static final class Structure<T> {
     private static <E> @NonNull Structure<E> generate(final @NonNull Logger logger, final MethodHandles.@NonNull Lookup lookup,
-                                                      final @NonNull Class<E> packet) {
-      final Map<Class<?>, List<Handle>> handleMap = Maps.newHashMap();
+                                                      final @NonNull AccessorFactory accessors, final @NonNull Class<E> packet) {
+      final List<Handle> handles = new ArrayList<>();
       Structure.find(packet, Class::getSuperclass, fields -> {
         for(final Field field : fields) {
+          if(Modifier.isStatic(field.getModifiers())) continue;
           try {
             field.setAccessible(true);
-            final List<Handle> methodHandles = handleMap.computeIfAbsent(field.getType(), key -> new ArrayList<>());
-            methodHandles.add(new Handle(lookup.unreflectGetter(field), lookup.unreflectSetter(field)));
+            handles.add(new Handle(handles.size(), lookup.unreflectGetter(field), lookup.unreflectSetter(field)));
           } catch(Throwable throwable) {
             Exceptions.catchingReport(
               throwable,
@@ -238,7 +768,50 @@ public final class PacketRemapper {
           }
         }
       });
-      return new Structure<>(packet, handleMap);
+      final Map<Class<?>, List<Integer>> slotMap = Maps.newHashMap();
+      for(final Handle handle : handles) {
+        slotMap.computeIfAbsent(handle.type(), key -> new ArrayList<>()).add(handle.slot());
+      }
+      final Map<Class<?>, int[]> slots = Maps.newHashMapWithExpectedSize(slotMap.size());
+      for(final Map.Entry<Class<?>, List<Integer>> entry : slotMap.entrySet()) {
+        slots.put(entry.getKey(), Ints.toArray(entry.getValue()));
+      }
+      PacketAccessor accessor;
+      try {
+        accessor = accessors.create(packet, handles);
+      } catch(Throwable throwable) {
+        Exceptions.catchingReport(
+          throwable,
+          logger,
+          PacketRemapper.class,
+          "remapper",
+          "Encountered a minor exception attempting to generate packet accessor",
+          report -> report.category("structure_generate")
+            .detail("packet", packet)
+        );
+        accessor = new AccessorFactory.HandleAccessor(handles);
+      }
+      MethodHandle allocator = null;
+      if(!Modifier.isAbstract(packet.getModifiers())) {
+        try {
+          final Constructor<E> constructor = packet.getDeclaredConstructor();
+          constructor.setAccessible(true);
+          allocator = lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch(NoSuchMethodException exception) {
+          // The packet cannot be copied without a constructor.
+        } catch(Throwable throwable) {
+          Exceptions.catchingReport(
+            throwable,
+            logger,
+            PacketRemapper.class,
+            "remapper",
+            "Encountered a minor exception attempting to access packet constructor",
+            report -> report.category("structure_generate")
+              .detail("packet", packet)
+          );
+        }
+      }
+      return new Structure<>(packet, handles.toArray(new Handle[0]), slots, accessor, allocator);
     }
 
     private static void find(final @NonNull Class<?> search, final @NonNull Function<Class<?>, Class<?>> superSearch,
@@ -252,39 +825,158 @@ public final class PacketRemapper {
     }
 
     private final Class<T> packet;
-    private final Map<Class<?>, List<Handle>> handles;
+    private final Handle[] handles;
+    private final Map<Class<?>, int[]> slots;
+    private final PacketAccessor accessor;
+    private final @Nullable MethodHandle allocator;
 
-    /* package */ Structure(final @NonNull Class<T> packet, final @NonNull Map<Class<?>, List<Handle>> handles) {
+    /* package */ Structure(final @NonNull Class<T> packet, final Handle @NonNull [] handles,
+                            final @NonNull Map<Class<?>, int[]> slots, final @NonNull PacketAccessor accessor,
+                            final @Nullable MethodHandle allocator) {
       this.packet = packet;
       this.handles = handles;
+      this.slots = slots;
+      this.accessor = accessor;
+      this.allocator = allocator;
     }
 
     public @NonNull Class<T> packet() {
       return this.packet;
     }
 
+    public @NonNull PacketAccessor accessor() {
+      return this.accessor;
+    }
+
+    /**
+     * Returns the number of field slots in this structure.
+     *
+     * @return the number of slots
+     */
+    public int size() {
+      return this.handles.length;
+    }
+
+    /**
+     * Returns the {@link Handle} at the specified slot, where the
+     * slots are the fields of the packet class in declaration order,
+     * followed by the fields of its super classes.
+     *
+     * @param slot the field slot
+     * @return the handle, if present
+     */
+    public @Nullable Handle handle(final int slot) {
+      if(slot < 0 || slot >= this.handles.length) return null;
+      return this.handles[slot];
+    }
+
+    public @Nullable Handle handle(final @NonNull Class<?> type, final int index) {
+      return this.handle(this.slot(type, index));
+    }
+
+    /**
+     * Returns the slot of the element of type {@link Class} at
+     * the specified index position of the fields in the packet
+     * class, or {@code -1} if there is no such field.
+     *
+     * @param type the element class type
+     * @param index the element index
+     * @return the field slot
+     */
+    public int slot(final @NonNull Class<?> type, final int index) {
+      final int[] slots = this.slots.get(requireNonNull(type, "type"));
+      if(slots == null || index < 0 || index >= slots.length) return -1;
+      return slots[index];
+    }
+
+    /**
+     * Resolves the element {@code E} of type {@link Class} at the
+     * specified index position of the fields in the packet class
+     * into a {@link Slot}, which can be kept to access the field
+     * without looking it up again.
+     *
+     * @param type the element class type
+     * @param index the element index
+     * @param <E> the element type
+     * @return the field slot
+     */
+    public <E> @NonNull Slot<E> resolve(final @NonNull Class<E> type, final int index) {
+      final int slot = this.slot(type, index);
+      if(slot < 0) throw new IllegalStateException("Unable to locate method handle");
+      return new Slot<>(this.packet, type, slot);
+    }
+
+    /* package */ @NonNull T allocate() throws Throwable {
+      if(this.allocator == null) throw new IllegalStateException("Unable to locate packet constructor");
+      return (T) this.allocator.invokeExact();
+    }
+
     public @Nullable MethodHandle getter(final @NonNull Class<?> type, final int index) {
-      requireNonNull(type, "type");
-      final List<Handle> handles = this.handles.get(type);
-      if(handles == null || index < 0 || index >= handles.size()) return null;
-      return handles.get(index).getter();
+      final Handle handle = this.handle(type, index);
+      return handle != null ? handle.getter() : null;
     }
 
     public @Nullable MethodHandle setter(final @NonNull Class<?> type, final int index) {
-      requireNonNull(type, "type");
-      final List<Handle> handles = this.handles.get(type);
-      if(handles == null || index < 0 || index >= handles.size()) return null;
-      return handles.get(index).setter();
+      final Handle handle = this.handle(type, index);
+      return handle != null ? handle.setter() : null;
+    }
+  }
+
+  /**
+   * A resolved field slot of a specific packet class, used to
+   * access the field of a {@link Wrapped} packet without looking
+   * it up by type and index.
+   *
+   * @param <E> the element type
+   */
+  public static final class Slot<E> {
+    private final Class<?> packet;
+    private final Class<E> type;
+    private final int slot;
+
+    /* package */ Slot(final @NonNull Class<?> packet, final @NonNull Class<E> type, final int slot) {
+      this.packet = packet;
+      this.type = type;
+      this.slot = slot;
+    }
+
+    public @NonNull Class<?> packet() {
+      return this.packet;
+    }
+
+    public @NonNull Class<E> type() {
+      return this.type;
+    }
+
+    public int slot() {
+      return this.slot;
     }
   }
 
   public static final class Handle {
+    private final int slot;
     private final MethodHandle getter;
     private final MethodHandle setter;
+    private final MethodHandle copier;
 
-    /* package */ Handle(final @NonNull MethodHandle getter, final @NonNull MethodHandle setter) {
+    /* package */ Handle(final int slot, final @NonNull MethodHandle getter, final @NonNull MethodHandle setter) {
+      this.slot = slot;
       this.getter = getter;
       this.setter = setter;
+      // (source, target) -> target.field = source.field
+      this.copier = MethodHandles.permuteArguments(
+        MethodHandles.filterArguments(setter, 1, getter).asType(MethodType.methodType(void.class, Object.class, Object.class)),
+        MethodType.methodType(void.class, Object.class, Object.class),
+        1, 0
+      );
+    }
+
+    public int slot() {
+      return this.slot;
+    }
+
+    public @NonNull Class<?> type() {
+      return this.getter.type().returnType();
     }
 
     public @NonNull MethodHandle getter() {
@@ -294,5 +986,9 @@ public final class PacketRemapper {
     public @NonNull MethodHandle setter() {
       return this.setter;
     }
+
+    /* package */ @NonNull MethodHandle copier() {
+      return this.copier;
+    }
   }
 }
@@ -26,6 +26,12 @@ package com.ichorpowered.protocolcontrol.service;
 
 import com.ichorpowered.protocolcontrol.ProtocolChannel;
 import com.ichorpowered.protocolcontrol.ProtocolEvent;
+import com.ichorpowered.protocolcontrol.metrics.ProtocolMetrics;
+import com.ichorpowered.protocolcontrol.metrics.StallDetector;
+import com.ichorpowered.protocolcontrol.packet.FlushCoalescer;
+import com.ichorpowered.protocolcontrol.packet.PacketCache;
+import com.ichorpowered.protocolcontrol.packet.PacketFirewall;
+import com.ichorpowered.protocolcontrol.packet.PacketPriorities;
 import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
@@ -58,4 +64,53 @@ public interface ProtocolService {
    * @return the packet remapper
    */
   @NonNull PacketRemapper remapper();
+
+  /**
+   * Returns the {@link PacketCache} providing methods to
+   * keep packets that are sent many times pre-encoded.
+   *
+   * @return the packet cache
+   */
+  @NonNull PacketCache cache();
+
+  /**
+   * Returns the {@link FlushCoalescer} providing methods to
+   * configure and monitor outgoing flush coalescing.
+   *
+   * @return the flush coalescer
+   */
+  @NonNull FlushCoalescer flushes();
+
+  /**
+   * Returns the {@link PacketPriorities} providing methods to
+   * configure how outgoing packets are queued while a channel
+   * is not writable.
+   *
+   * @return the packet priorities
+   */
+  @NonNull PacketPriorities priorities();
+
+  /**
+   * Returns the {@link PacketFirewall} providing methods to
+   * drop incoming packets before they are decoded.
+   *
+   * @return the packet firewall
+   */
+  @NonNull PacketFirewall firewall();
+
+  /**
+   * Returns the {@link ProtocolMetrics} providing methods to
+   * record and snapshot packet traffic.
+   *
+   * @return the protocol metrics
+   */
+  @NonNull ProtocolMetrics metrics();
+
+  /**
+   * Returns the {@link StallDetector} providing methods to
+   * detect and snapshot event loop stalls.
+   *
+   * @return the stall detector
+   */
+  @NonNull StallDetector stalls();
 }
@@ -28,6 +28,12 @@ import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.ichorpowered.protocolcontrol.ProtocolChannel;
 import com.ichorpowered.protocolcontrol.ProtocolEvent;
+import com.ichorpowered.protocolcontrol.metrics.ProtocolMetrics;
+import com.ichorpowered.protocolcontrol.metrics.StallDetector;
+import com.ichorpowered.protocolcontrol.packet.FlushCoalescer;
+import com.ichorpowered.protocolcontrol.packet.PacketCache;
+import com.ichorpowered.protocolcontrol.packet.PacketFirewall;
+import com.ichorpowered.protocolcontrol.packet.PacketPriorities;
 import com.ichorpowered.protocolcontrol.packet.PacketRemapper;
 import org.checkerframework.checker.nullness.qual.NonNull;
 
@@ -36,14 +42,32 @@ public final class SimpleProtocolService implements ProtocolService {
   private final ProtocolChannel channels;
   private final ProtocolEvent events;
   private final PacketRemapper remapper;
+  private final PacketCache cache;
+  private final FlushCoalescer flushes;
+  private final PacketPriorities priorities;
+  private final PacketFirewall firewall;
+  private final ProtocolMetrics metrics;
+  private final StallDetector stalls;
 
   @Inject
   public SimpleProtocolService(final ProtocolChannel channels,
                                final ProtocolEvent events,
-                               final PacketRemapper remapper) {
+                               final PacketRemapper remapper,
+                               final PacketCache cache,
+                               final FlushCoalescer flushes,
+                               final PacketPriorities priorities,
+                               final PacketFirewall firewall,
+                               final ProtocolMetrics metrics,
+                               final StallDetector stalls) {
     this.channels = channels;
     this.events = events;
     this.remapper = remapper;
+    this.cache = cache;
+    this.flushes = flushes;
+    this.priorities = priorities;
+    this.firewall = firewall;
+    this.metrics = metrics;
+    this.stalls = stalls;
   }
 
   @Override
@@ -60,4 +84,34 @@ public final class SimpleProtocolService implements ProtocolService {
   public @NonNull PacketRemapper remapper() {
     return this.remapper;
   }
+
+  @Override
+  public @NonNull PacketCache cache() {
+    return this.cache;
+  }
+
+  @Override
+  public @NonNull FlushCoalescer flushes() {
+    return this.flushes;
+  }
+
+  @Override
+  public @NonNull PacketPriorities priorities() {
+    return this.priorities;
+  }
+
+  @Override
+  public @NonNull PacketFirewall firewall() {
+    return this.firewall;
+  }
+
+  @Override
+  public @NonNull ProtocolMetrics metrics() {
+    return this.metrics;
+  }
+
+  @Override
+  public @NonNull StallDetector stalls() {
+    return this.stalls;
+  }
 }
@@ -0,0 +1,88 @@
+/*
+ * This file is part of ProtocolControl, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) IchorPowered <http://ichorpowered.com>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.ichorpowered.protocolcontrol.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An executor made up of a fixed number of serial lanes, each
+ * with their own thread and queue.
+ *
+ * Tasks submitted with the same key are always executed on the
+ * same lane, in the order they were submitted, while tasks for
+ * different keys are spread across the lanes.
+ */
+public final class StripedExecutor {
+  private final ExecutorService[] lanes;
+
+  public StripedExecutor(final int lanes, final @NonNull ThreadFactory threadFactory) {
+    if(lanes < 1) throw new IllegalArgumentException("lanes must be positive");
+    requireNonNull(threadFactory, "threadFactory");
+    this.lanes = new ExecutorService[lanes];
+    for(int i = 0; i < lanes; i++) {
+      this.lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+    }
+  }
+
+  /**
+   * Returns the number of lanes in this executor.
+   *
+   * @return the number of lanes
+   */
+  public int lanes() {
+    return this.lanes.length;
+  }
+
+  /**
+   * Executes the specified {@link Runnable} on the lane the
+   * specified key is pinned to.
+   *
+   * @param key the lane key
+   * @param task the task
+   */
+  public void execute(final @NonNull Object key, final @NonNull Runnable task) {
+    this.lane(requireNonNull(key, "key")).execute(requireNonNull(task, "task"));
+  }
+
+  /**
+   * Attempts to stop all executing tasks and halts the
+   * processing of waiting tasks on every lane.
+   */
+  public void shutdownNow() {
+    for(final ExecutorService lane : this.lanes) {
+      lane.shutdownNow();
+    }
+  }
+
+  private @NonNull ExecutorService lane(final @NonNull Object key) {
+    final int hash = System.identityHashCode(key);
+    return this.lanes[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % this.lanes.length];
+  }
+}